@@ -0,0 +1,272 @@
+package io.jenkins.plugins.folderauth;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.security.ACL;
+import hudson.security.AuthorizationStrategy;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.ParametersAreNonnullByDefault;
+import jenkins.model.Jenkins;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Computes the {@link ACL}s of jobs ahead of time, so that the first users opening large views after a restart
+ * or a change of the roles do not pay for every cache miss at once.
+ * <p>
+ * All items below the same folder with roles share one cached {@link ACL}, so only the folders with roles are
+ * visited rather than every item, on a single thread with the lowest priority. This also compiles the
+ * {@link ACL}s of top-level folders when {@link FolderBasedAuthorizationStrategy#LAZY_JOB_ACLS} is enabled.
+ * A warm-up runs after startup and after every published change of the strategy when
+ * {@link FolderBasedAuthorizationStrategy#WARM_UP_ACL_CACHES} is enabled, and can be started and cancelled from
+ * the {@link FolderAuthorizationStrategyManagementLink}. Starting a warm-up cancels the running one.
+ */
+@ParametersAreNonnullByDefault
+@Restricted(NoExternalUse.class)
+public final class AclCacheWarmUp {
+    private static final Logger LOGGER = Logger.getLogger(AclCacheWarmUp.class.getName());
+
+    /**
+     * Seconds to wait after a change of the strategy, so that a series of changes only warms up the last one.
+     */
+    private static final long DELAY_AFTER_CHANGE = 5;
+
+    private static final ScheduledExecutorService executor = createExecutor();
+
+    private static final Object lock = new Object();
+
+    @CheckForNull
+    private static Future<?> scheduled;
+
+    /**
+     * The last strategy a warm-up was scheduled for after a change, so that publishing it through several paths
+     * only warms it up once.
+     */
+    private static Reference<FolderBasedAuthorizationStrategy> lastChanged = new WeakReference<>(null);
+
+    /**
+     * The running warm-up, or the last one which ended.
+     */
+    @CheckForNull
+    private static volatile Progress current;
+
+    private AclCacheWarmUp() {
+    }
+
+    @NonNull
+    private static ScheduledExecutorService createExecutor() {
+        ThreadFactory factory = new NamingThreadFactory(new DaemonThreadFactory(), "FolderAuthAclCacheWarmUp");
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = factory.newThread(runnable);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    @Initializer(after = InitMilestone.JOB_CONFIG_ADAPTED)
+    public static void warmUpAfterStartup() {
+        if (!FolderBasedAuthorizationStrategy.WARM_UP_ACL_CACHES) {
+            return;
+        }
+        synchronized (lock) {
+            AuthorizationStrategy strategy = Jenkins.get().getAuthorizationStrategy();
+            if (strategy instanceof FolderBasedAuthorizationStrategy) {
+                // the first save of the configuration does not warm up the loaded strategy again
+                lastChanged = new WeakReference<>((FolderBasedAuthorizationStrategy) strategy);
+            }
+            schedule(DELAY_AFTER_CHANGE);
+        }
+    }
+
+    /**
+     * Schedules a warm-up after a new version of the strategy was published, if enabled and not yet scheduled
+     * for that version. Does nothing while Jenkins starts, because {@link #warmUpAfterStartup()} waits for the
+     * items to be loaded.
+     *
+     * @param strategy the published strategy
+     */
+    static void warmUpAfterChange(FolderBasedAuthorizationStrategy strategy) {
+        if (!FolderBasedAuthorizationStrategy.WARM_UP_ACL_CACHES) {
+            return;
+        }
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null || jenkins.getInitLevel() != InitMilestone.COMPLETED) {
+            return;
+        }
+        synchronized (lock) {
+            if (lastChanged.get() == strategy) {
+                return;
+            }
+            lastChanged = new WeakReference<>(strategy);
+            schedule(DELAY_AFTER_CHANGE);
+        }
+    }
+
+    /**
+     * Starts a warm-up in the background now.
+     */
+    public static void start() {
+        schedule(0);
+    }
+
+    /**
+     * Cancels the scheduled and the running warm-up, if any.
+     */
+    public static void cancel() {
+        synchronized (lock) {
+            if (scheduled != null) {
+                // interrupts a warm-up which has not created its progress yet
+                scheduled.cancel(true);
+                scheduled = null;
+            }
+        }
+        Progress progress = current;
+        if (progress != null) {
+            progress.cancelled = true;
+        }
+    }
+
+    /**
+     * @return the running warm-up, or the last one which ended, or null if none has run yet
+     */
+    @CheckForNull
+    public static Progress getProgress() {
+        return current;
+    }
+
+    private static void schedule(long delaySeconds) {
+        synchronized (lock) {
+            cancel();
+            scheduled = executor.schedule(AclCacheWarmUp::warmUpCurrentStrategy, delaySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void warmUpCurrentStrategy() {
+        Jenkins jenkins = Jenkins.get();
+        AuthorizationStrategy strategy = jenkins.getAuthorizationStrategy();
+        if (!(strategy instanceof FolderBasedAuthorizationStrategy)) {
+            return;
+        }
+        try {
+            Progress progress = warmUp((FolderBasedAuthorizationStrategy) strategy, true);
+            LOGGER.log(Level.FINE, "Warmed up the ACLs of {0} of {1} folders in {2} ms", new Object[]{
+                progress.getDone(), progress.getTotal(), progress.getDurationMillis()});
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Unable to warm up the ACLs of jobs", e);
+        }
+    }
+
+    /**
+     * Computes the {@link ACL}s shared by the items below each folder with roles with {@code strategy} in the
+     * current thread, until it is cancelled. Stops once the cache of {@code strategy} is full, so that warming up
+     * does not evict what it has just computed.
+     *
+     * @param strategy the strategy whose caches are filled, which need not be the current one
+     * @return the ended warm-up
+     */
+    @NonNull
+    public static Progress warmUp(FolderBasedAuthorizationStrategy strategy) {
+        return warmUp(strategy, false);
+    }
+
+    /**
+     * @param stopWhenReplaced whether to stop once {@code strategy} is no longer the current strategy
+     */
+    @NonNull
+    private static Progress warmUp(FolderBasedAuthorizationStrategy strategy, boolean stopWhenReplaced) {
+        Jenkins jenkins = Jenkins.get();
+        List<String> folders = new ArrayList<>(strategy.getRuledFolders());
+        int total = (int) Math.min(folders.size(), strategy.getJobAclCacheMaximumSize());
+
+        Progress progress = new Progress(total);
+        current = progress;
+        for (String folder : folders.subList(0, total)) {
+            if (progress.cancelled || Thread.currentThread().isInterrupted()
+                    || stopWhenReplaced && jenkins.getAuthorizationStrategy() != strategy) {
+                progress.cancelled = true;
+                break;
+            }
+            strategy.warmUpJobAcl(folder);
+            progress.done.incrementAndGet();
+        }
+        progress.end();
+        return progress;
+    }
+
+    /**
+     * The progress of one warm-up.
+     */
+    public static final class Progress {
+        private final int total;
+        private final AtomicInteger done = new AtomicInteger();
+        private final long startNanos = System.nanoTime();
+        private volatile long endNanos;
+        private volatile boolean running = true;
+        private volatile boolean cancelled;
+
+        private Progress(int total) {
+            this.total = total;
+        }
+
+        private void end() {
+            endNanos = System.nanoTime();
+            running = false;
+        }
+
+        /**
+         * @return the number of folders whose {@link ACL}s are computed
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * @return the number of folders whose {@link ACL}s have been computed so far
+         */
+        public int getDone() {
+            return done.get();
+        }
+
+        /**
+         * @return the percentage of folders whose {@link ACL}s have been computed so far
+         */
+        public int getPercentage() {
+            return total == 0 ? 100 : (int) (100L * done.get() / total);
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        /**
+         * @return true if the warm-up was cancelled, or stopped because the strategy was replaced
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return the milliseconds spent so far, or in total once the warm-up ended
+         */
+        public long getDurationMillis() {
+            return TimeUnit.NANOSECONDS.toMillis((running ? System.nanoTime() : endNanos) - startNanos);
+        }
+    }
+}
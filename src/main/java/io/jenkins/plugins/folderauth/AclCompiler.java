@@ -0,0 +1,150 @@
+package io.jenkins.plugins.folderauth;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.ParametersAreNonnullByDefault;
+import jenkins.util.SystemProperties;
+
+/**
+ * Runs the independent parts of building the {@link hudson.security.ACL}s of a
+ * {@link FolderBasedAuthorizationStrategy} in parallel.
+ * <p>
+ * Uses its own executor with a bounded number of threads rather than the common
+ * {@link java.util.concurrent.ForkJoinPool} shared with the rest of Jenkins. Every task must build its result
+ * without modifying anything shared with other tasks, and must not call this class itself. Results are returned by
+ * key, so they do not depend on the order in which tasks complete.
+ */
+@ParametersAreNonnullByDefault
+final class AclCompiler {
+    /**
+     * Maximum number of threads used to build {@link hudson.security.ACL}s.
+     */
+    private static final int THREADS = Math.max(1, SystemProperties.getInteger(
+        FolderBasedAuthorizationStrategy.class.getName() + ".compilerThreads",
+        Runtime.getRuntime().availableProcessors()));
+
+    private static final ExecutorService executor = createExecutor();
+
+    private AclCompiler() {
+    }
+
+    @NonNull
+    private static ExecutorService createExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), new NamingThreadFactory(new DaemonThreadFactory(), "FolderAuthAclCompiler"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Runs all tasks and waits for them to complete.
+     *
+     * @param tasks the tasks to run, by key
+     * @param <K>   the type of keys
+     * @param <V>   the type of results
+     * @return the result of every task, by key
+     * @throws RuntimeException when a task throws an exception
+     */
+    @NonNull
+    static <K, V> Map<K, V> compileAll(Map<K, Callable<V>> tasks) {
+        Map<K, V> results = new HashMap<>();
+        if (tasks.size() <= 1 || THREADS == 1) {
+            tasks.forEach((key, task) -> results.put(key, call(task)));
+            return results;
+        }
+
+        List<K> keys = new ArrayList<>(tasks.keySet());
+        List<Future<V>> futures = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            futures.add(executor.submit(tasks.get(key)));
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            results.put(keys.get(i), await(futures.get(i)));
+        }
+        return results;
+    }
+
+    /**
+     * Runs {@code task} on the calling thread while the {@code others} run on the executor, and waits for all of
+     * them to complete.
+     * <p>
+     * Only {@code task} may call {@link #compileAll(Map)}.
+     *
+     * @param task   the task to run on the calling thread
+     * @param others the tasks to run on the executor
+     * @throws RuntimeException when a task throws an exception
+     */
+    static void runAll(Runnable task, Runnable... others) {
+        if (THREADS == 1) {
+            task.run();
+            for (Runnable other : others) {
+                other.run();
+            }
+            return;
+        }
+
+        List<Future<Object>> futures = new ArrayList<>(others.length);
+        for (Runnable other : others) {
+            futures.add(executor.submit(Executors.callable(other)));
+        }
+        task.run();
+        for (Future<Object> future : futures) {
+            await(future);
+        }
+    }
+
+    /**
+     * Waits for a task to complete. The tasks do not block, so waiting for them is not interrupted; the interrupt
+     * status of the calling thread is restored afterwards.
+     */
+    private static <V> V await(Future<V> future) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw rethrow(e.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static <V> V call(Callable<V> task) {
+        try {
+            return task.call();
+        } catch (Exception e) {
+            throw rethrow(e);
+        }
+    }
+
+    @NonNull
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new IllegalStateException("Unable to build the ACLs", t);
+    }
+}
@@ -1,6 +1,10 @@
 package io.jenkins.plugins.folderauth;
 
+import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.security.AuthorizationStrategy;
+import hudson.security.Permission;
+import io.jenkins.plugins.folderauth.misc.PermissionGrant;
+import io.jenkins.plugins.folderauth.misc.SidAssignments;
 import io.jenkins.plugins.folderauth.roles.AgentRole;
 import io.jenkins.plugins.folderauth.roles.FolderRole;
 import io.jenkins.plugins.folderauth.roles.GlobalRole;
@@ -9,6 +13,7 @@ import org.apache.commons.lang.StringUtils;
 
 import javax.annotation.ParametersAreNonnullByDefault;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
@@ -29,30 +34,95 @@ public class FolderAuthorizationStrategyAPI {
     private FolderAuthorizationStrategyAPI() {
     }
 
+    /**
+     * Number of times a modification is computed without holding {@link #PUBLISH_LOCK} before giving up on
+     * other modifications finishing first.
+     */
+    private static final int MAX_OPTIMISTIC_ATTEMPTS = 8;
+
+    /**
+     * Guards publishing a new {@link FolderBasedAuthorizationStrategy}. Only held while comparing the current
+     * strategy and replacing it, unless a modification kept losing against others.
+     */
+    private static final Object PUBLISH_LOCK = new Object();
+
     /**
      * Checks the {@link AuthorizationStrategy} and runs the {@link Consumer} when it is an instance of
      * {@link FolderBasedAuthorizationStrategy}.
      * <p>
-     * All attempts to access the {@link FolderBasedAuthorizationStrategy} must go through this method
-     * for thread-safety.
+     * All attempts to modify the {@link FolderBasedAuthorizationStrategy} must go through this method
+     * for thread-safety. The new strategy is computed without holding any lock. It is published only if the
+     * strategy it was computed from is still the current one; otherwise {@code runner} is applied again to the
+     * new current strategy. Since strategies are immutable, the strategy object itself identifies the version
+     * being modified. After a few conflicts, the modification is computed while holding the lock so that it
+     * cannot be starved by others.
      *
      * @param runner a function that consumes the current {@link FolderBasedAuthorizationStrategy} and returns a non
      *               null {@link FolderBasedAuthorizationStrategy} object. The object may be the same as the one
-     *               consumed if no modification was needed.
+     *               consumed if no modification was needed. It may be called more than once and must not have
+     *               side effects.
      * @throws IllegalStateException when {@link Jenkins#getAuthorizationStrategy()} is not
      *                               {@link FolderBasedAuthorizationStrategy}
      */
-    private synchronized static void run(Function<FolderBasedAuthorizationStrategy, FolderBasedAuthorizationStrategy> runner) {
+    private static void run(Function<FolderBasedAuthorizationStrategy, FolderBasedAuthorizationStrategy> runner) {
         Jenkins jenkins = Jenkins.get();
+
+        FolderBasedAuthorizationStrategy published;
+        for (int attempt = 1; ; attempt++) {
+            if (attempt > MAX_OPTIMISTIC_ATTEMPTS) {
+                synchronized (PUBLISH_LOCK) {
+                    FolderBasedAuthorizationStrategy strategy = getCurrentStrategy(jenkins);
+                    FolderBasedAuthorizationStrategy newStrategy = runner.apply(strategy);
+                    if (newStrategy == strategy) {
+                        return;
+                    }
+                    jenkins.setAuthorizationStrategy(newStrategy);
+                    published = newStrategy;
+                }
+                break;
+            }
+
+            FolderBasedAuthorizationStrategy strategy = getCurrentStrategy(jenkins);
+            FolderBasedAuthorizationStrategy newStrategy = runner.apply(strategy);
+            if (newStrategy == strategy) {
+                return;
+            }
+            if (compareAndSet(jenkins, strategy, newStrategy)) {
+                published = newStrategy;
+                break;
+            }
+        }
+
+        // only published strategies are warmed up, not those which lost the race
+        AclCacheWarmUp.warmUpAfterChange(published);
+    }
+
+    @NonNull
+    private static FolderBasedAuthorizationStrategy getCurrentStrategy(Jenkins jenkins) {
         AuthorizationStrategy strategy = jenkins.getAuthorizationStrategy();
         if (strategy instanceof FolderBasedAuthorizationStrategy) {
-            FolderBasedAuthorizationStrategy newStrategy = runner.apply((FolderBasedAuthorizationStrategy) strategy);
-            jenkins.setAuthorizationStrategy(newStrategy);
+            return (FolderBasedAuthorizationStrategy) strategy;
         } else {
             throw new IllegalStateException("FolderBasedAuthorizationStrategy is not the" + " current authorization strategy");
         }
     }
 
+    /**
+     * Replaces the authorization strategy of Jenkins with {@code newStrategy} if it still is {@code expected}.
+     *
+     * @return true if the strategy was replaced
+     */
+    private static boolean compareAndSet(Jenkins jenkins, FolderBasedAuthorizationStrategy expected,
+                                         FolderBasedAuthorizationStrategy newStrategy) {
+        synchronized (PUBLISH_LOCK) {
+            if (jenkins.getAuthorizationStrategy() != expected) {
+                return false;
+            }
+            jenkins.setAuthorizationStrategy(newStrategy);
+            return true;
+        }
+    }
+
     /**
      * Adds a {@link GlobalRole} to the {@link FolderBasedAuthorizationStrategy}.
      *
@@ -61,14 +131,11 @@ public class FolderAuthorizationStrategyAPI {
      */
     public static void addGlobalRole(GlobalRole role) {
         run(strategy -> {
-            Set<GlobalRole> globalRoles = new HashSet<>(strategy.getGlobalRoles());
             String name = role.getName();
-            Optional<GlobalRole> existing = globalRoles.stream().filter(r -> r.getName().equals(name)).findAny();
-            if (existing.isPresent()) {
+            if (strategy.getGlobalRole(name) != null) {
                 throw new IllegalArgumentException("A global role with the name \"" + name + "\" already exists.");
             }
-            globalRoles.add(role);
-            return new FolderBasedAuthorizationStrategy(globalRoles, strategy.getFolderRoles(), strategy.getAgentRoles());
+            return strategy.replaceGlobalRole(null, role);
         });
     }
 
@@ -80,14 +147,11 @@ public class FolderAuthorizationStrategyAPI {
      */
     public static void addFolderRole(FolderRole role) {
         run(strategy -> {
-            Set<FolderRole> folderRoles = new HashSet<>(strategy.getFolderRoles());
             String name = role.getName();
-            Optional<FolderRole> existing = folderRoles.stream().filter(r -> r.getName().equals(name)).findAny();
-            if (existing.isPresent()) {
+            if (strategy.getFolderRole(name) != null) {
                 throw new IllegalArgumentException("A folder role with the name \"" + name + "\" already exists.");
             }
-            folderRoles.add(role);
-            return new FolderBasedAuthorizationStrategy(strategy.getGlobalRoles(), folderRoles, strategy.getAgentRoles());
+            return strategy.replaceFolderRole(null, role);
         });
     }
 
@@ -99,14 +163,11 @@ public class FolderAuthorizationStrategyAPI {
      */
     public static void addAgentRole(AgentRole role) {
         run(strategy -> {
-            Set<AgentRole> agentRoles = new HashSet<>(strategy.getAgentRoles());
             String name = role.getName();
-            Optional<AgentRole> existing = agentRoles.stream().filter(r -> r.getName().equals(name)).findAny();
-            if (existing.isPresent()) {
+            if (strategy.getAgentRole(name) != null) {
                 throw new IllegalArgumentException("An agent role with the name \"" + name + "\" already exists.");
             }
-            agentRoles.add(role);
-            return new FolderBasedAuthorizationStrategy(strategy.getGlobalRoles(), strategy.getFolderRoles(), agentRoles);
+            return strategy.replaceAgentRole(null, role);
         });
     }
 
@@ -124,14 +185,12 @@ public class FolderAuthorizationStrategyAPI {
         }
 
         run(strategy -> {
-            Set<GlobalRole> globalRoles = new HashSet<>(strategy.getGlobalRoles());
-            GlobalRole role = globalRoles.stream().filter(r -> r.getName().equals(roleName)).findAny().orElseThrow(
+            GlobalRole role = Optional.ofNullable(strategy.getGlobalRole(roleName)).orElseThrow(
                 () -> new IllegalArgumentException("No global role with name = \"" + roleName + "\" exists"));
             HashSet<String> newSids = new HashSet<>(role.getSids());
             newSids.add(sid);
-            globalRoles.remove(role);
-            globalRoles.add(new GlobalRole(role.getName(), role.getPermissionsUnsorted(), newSids));
-            return new FolderBasedAuthorizationStrategy(globalRoles, strategy.getFolderRoles(), strategy.getAgentRoles());
+            return strategy.replaceGlobalRole(role,
+                new GlobalRole(role.getName(), role.getPermissionsUnsorted(), newSids));
         });
     }
 
@@ -149,14 +208,12 @@ public class FolderAuthorizationStrategyAPI {
         }
 
         run(strategy -> {
-            Set<AgentRole> agentRoles = new HashSet<>(strategy.getAgentRoles());
-            AgentRole role = agentRoles.stream().filter(r -> r.getName().equals(roleName)).findAny().orElseThrow(
+            AgentRole role = Optional.ofNullable(strategy.getAgentRole(roleName)).orElseThrow(
                 () -> new IllegalArgumentException("No agent role with name = \"" + roleName + "\" exists"));
             HashSet<String> newSids = new HashSet<>(role.getSids());
             newSids.add(sid);
-            agentRoles.remove(role);
-            agentRoles.add(new AgentRole(role.getName(), role.getPermissionsUnsorted(), role.getAgents(), newSids));
-            return new FolderBasedAuthorizationStrategy(strategy.getGlobalRoles(), strategy.getFolderRoles(), agentRoles);
+            return strategy.replaceAgentRole(role,
+                new AgentRole(role.getName(), role.getPermissionsUnsorted(), role.getAgents(), newSids));
         });
     }
 
@@ -174,14 +231,12 @@ public class FolderAuthorizationStrategyAPI {
         }
 
         run(strategy -> {
-            Set<FolderRole> folderRoles = new HashSet<>(strategy.getFolderRoles());
-            FolderRole role = folderRoles.stream().filter(r -> r.getName().equals(roleName)).findAny().orElseThrow(
+            FolderRole role = Optional.ofNullable(strategy.getFolderRole(roleName)).orElseThrow(
                 () -> new IllegalArgumentException("No folder role with name = \"" + roleName + "\" exists"));
             HashSet<String> newSids = new HashSet<>(role.getSids());
             newSids.add(sid);
-            folderRoles.remove(role);
-            folderRoles.add(new FolderRole(role.getName(), role.getPermissionsUnsorted(), role.getFolderNames(), newSids));
-            return new FolderBasedAuthorizationStrategy(strategy.getGlobalRoles(), folderRoles, strategy.getAgentRoles());
+            return strategy.replaceFolderRole(role,
+                new FolderRole(role.getName(), role.getPermissionsUnsorted(), role.getFolderNames(), newSids));
         });
     }
 
@@ -197,11 +252,9 @@ public class FolderAuthorizationStrategyAPI {
         }
 
         run(strategy -> {
-            Set<GlobalRole> globalRoles = new HashSet<>(strategy.getGlobalRoles());
-            GlobalRole role = globalRoles.stream().filter(r -> r.getName().equals(roleName)).findAny().orElseThrow(
+            GlobalRole role = Optional.ofNullable(strategy.getGlobalRole(roleName)).orElseThrow(
                 () -> new IllegalArgumentException("No global role with name = \"" + roleName + "\" exists"));
-            globalRoles.remove(role);
-            return new FolderBasedAuthorizationStrategy(globalRoles, strategy.getFolderRoles(), strategy.getAgentRoles());
+            return strategy.replaceGlobalRole(role, null);
         });
     }
 
@@ -213,11 +266,9 @@ public class FolderAuthorizationStrategyAPI {
      */
     public static void deleteFolderRole(String roleName) {
         run(strategy -> {
-            Set<FolderRole> folderRoles = new HashSet<>(strategy.getFolderRoles());
-            FolderRole role = folderRoles.stream().filter(r -> r.getName().equals(roleName)).findAny().orElseThrow(
+            FolderRole role = Optional.ofNullable(strategy.getFolderRole(roleName)).orElseThrow(
                 () -> new IllegalArgumentException("No folder role with name = \"" + roleName + "\" exists"));
-            folderRoles.remove(role);
-            return new FolderBasedAuthorizationStrategy(strategy.getGlobalRoles(), folderRoles, strategy.getAgentRoles());
+            return strategy.replaceFolderRole(role, null);
         });
     }
 
@@ -229,11 +280,9 @@ public class FolderAuthorizationStrategyAPI {
      */
     public static void deleteAgentRole(String roleName) {
         run(strategy -> {
-            Set<AgentRole> agentRoles = new HashSet<>(strategy.getAgentRoles());
-            AgentRole role = agentRoles.stream().filter(r -> r.getName().equals(roleName)).findAny().orElseThrow(
+            AgentRole role = Optional.ofNullable(strategy.getAgentRole(roleName)).orElseThrow(
                 () -> new IllegalArgumentException("No agent role with name = \"" + roleName + "\" exists"));
-            agentRoles.remove(role);
-            return new FolderBasedAuthorizationStrategy(strategy.getGlobalRoles(), strategy.getFolderRoles(), agentRoles);
+            return strategy.replaceAgentRole(role, null);
         });
     }
 
@@ -247,15 +296,13 @@ public class FolderAuthorizationStrategyAPI {
      */
     public static void removeSidFromGlobalRole(String sid, String roleName) {
         run(strategy -> {
-            Set<GlobalRole> globalRoles = new HashSet<>(strategy.getGlobalRoles());
-            GlobalRole role = globalRoles.stream().filter(r -> r.getName().equals(roleName)).findAny().orElseThrow(
+            GlobalRole role = Optional.ofNullable(strategy.getGlobalRole(roleName)).orElseThrow(
                 () -> new IllegalArgumentException("No global role with name equal to \"" + roleName + "\" exists.")
             );
             Set<String> sids = new HashSet<>(role.getSids());
             sids.remove(sid);
-            globalRoles.remove(role);
-            globalRoles.add(new GlobalRole(role.getName(), role.getPermissions(), sids));
-            return new FolderBasedAuthorizationStrategy(globalRoles, strategy.getFolderRoles(), strategy.getAgentRoles());
+            return strategy.replaceGlobalRole(role,
+                new GlobalRole(role.getName(), role.getPermissions(), sids));
         });
     }
 
@@ -269,15 +316,13 @@ public class FolderAuthorizationStrategyAPI {
      */
     public static void removeSidFromFolderRole(String sid, String roleName) {
         run(strategy -> {
-            Set<FolderRole> folderRoles = new HashSet<>(strategy.getFolderRoles());
-            FolderRole role = folderRoles.stream().filter(r -> r.getName().equals(roleName)).findAny().orElseThrow(
+            FolderRole role = Optional.ofNullable(strategy.getFolderRole(roleName)).orElseThrow(
                 () -> new IllegalArgumentException("No folder role with name equal to \"" + roleName + "\" exists.")
             );
             Set<String> sids = new HashSet<>(role.getSids());
             sids.remove(sid);
-            folderRoles.remove(role);
-            folderRoles.add(new FolderRole(role.getName(), role.getPermissions(), role.getFolderNames(), sids));
-            return new FolderBasedAuthorizationStrategy(strategy.getGlobalRoles(), folderRoles, strategy.getAgentRoles());
+            return strategy.replaceFolderRole(role,
+                new FolderRole(role.getName(), role.getPermissions(), role.getFolderNames(), sids));
         });
     }
 
@@ -291,15 +336,92 @@ public class FolderAuthorizationStrategyAPI {
      */
     public static void removeSidFromAgentRole(String sid, String roleName) {
         run(strategy -> {
-            Set<AgentRole> agentRoles = new HashSet<>(strategy.getAgentRoles());
-            AgentRole role = agentRoles.stream().filter(r -> r.getName().equals(roleName)).findAny().orElseThrow(
+            AgentRole role = Optional.ofNullable(strategy.getAgentRole(roleName)).orElseThrow(
                 () -> new IllegalArgumentException("No agent role with name equal to \"" + roleName + "\" exists.")
             );
             Set<String> sids = new HashSet<>(role.getSids());
             sids.remove(sid);
-            agentRoles.remove(role);
-            agentRoles.add(new AgentRole(role.getName(), role.getPermissions(), role.getAgents(), sids));
-            return new FolderBasedAuthorizationStrategy(strategy.getGlobalRoles(), strategy.getFolderRoles(), agentRoles);
+            return strategy.replaceAgentRole(role,
+                new AgentRole(role.getName(), role.getPermissions(), role.getAgents(), sids));
+        });
+    }
+
+    /**
+     * Returns the roles that {@code sid} has been assigned to.
+     *
+     * @param sid the sid of a user or group
+     * @return the roles of the sid
+     * @throws IllegalStateException when {@link Jenkins#getAuthorizationStrategy()} is not
+     *                               {@link FolderBasedAuthorizationStrategy}
+     */
+    @NonNull
+    public static SidAssignments getAssignments(String sid) {
+        return getCurrentStrategy(Jenkins.get()).getAssignments(sid);
+    }
+
+    /**
+     * Returns the sids holding {@code permission}, directly or through an implying permission, and where they hold it.
+     *
+     * @param permission the permission
+     * @return the grants of the permission
+     * @throws IllegalStateException when {@link Jenkins#getAuthorizationStrategy()} is not
+     *                               {@link FolderBasedAuthorizationStrategy}
+     */
+    @NonNull
+    public static List<PermissionGrant> getGrants(Permission permission) {
+        return getCurrentStrategy(Jenkins.get()).getGrants(permission);
+    }
+
+    /**
+     * Removes the {@code sid} from every {@link GlobalRole}, {@link FolderRole} and {@link AgentRole} it has been
+     * assigned to.
+     * <p>
+     * Only the roles of the sid are visited, so this does not depend on the total number of roles.
+     *
+     * @param sid the sid that will be removed.
+     */
+    public static void removeSidFromAllRoles(String sid) {
+        run(strategy -> {
+            SidAssignments assignments = strategy.getAssignments(sid);
+            if (assignments.isEmpty()) {
+                return strategy;
+            }
+
+            // role sets without the sid are kept, so that everything computed from them is reused
+            Set<GlobalRole> globalRoles = null;
+            if (!assignments.getGlobalRoles().isEmpty()) {
+                globalRoles = new HashSet<>(strategy.getGlobalRoles());
+                for (GlobalRole role : assignments.getGlobalRoles()) {
+                    Set<String> sids = new HashSet<>(role.getSids());
+                    sids.remove(sid);
+                    globalRoles.remove(role);
+                    globalRoles.add(new GlobalRole(role.getName(), role.getPermissions(), sids));
+                }
+            }
+
+            Set<FolderRole> folderRoles = null;
+            if (!assignments.getFolderRoles().isEmpty()) {
+                folderRoles = new HashSet<>(strategy.getFolderRoles());
+                for (FolderRole role : assignments.getFolderRoles()) {
+                    Set<String> sids = new HashSet<>(role.getSids());
+                    sids.remove(sid);
+                    folderRoles.remove(role);
+                    folderRoles.add(new FolderRole(role.getName(), role.getPermissions(), role.getFolderNames(), sids));
+                }
+            }
+
+            Set<AgentRole> agentRoles = null;
+            if (!assignments.getAgentRoles().isEmpty()) {
+                agentRoles = new HashSet<>(strategy.getAgentRoles());
+                for (AgentRole role : assignments.getAgentRoles()) {
+                    Set<String> sids = new HashSet<>(role.getSids());
+                    sids.remove(sid);
+                    agentRoles.remove(role);
+                    agentRoles.add(new AgentRole(role.getName(), role.getPermissions(), role.getAgents(), sids));
+                }
+            }
+
+            return strategy.withRoles(globalRoles, folderRoles, agentRoles);
         });
     }
 }
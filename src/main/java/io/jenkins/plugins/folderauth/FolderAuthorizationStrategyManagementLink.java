@@ -1,6 +1,7 @@
 package io.jenkins.plugins.folderauth;
 
 import com.cloudbees.hudson.plugins.folder.AbstractFolder;
+import com.google.common.cache.CacheStats;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
@@ -18,6 +19,7 @@ import hudson.security.ACLContext;
 import hudson.security.AuthorizationStrategy;
 import hudson.security.Permission;
 import hudson.security.PermissionGroup;
+import io.jenkins.plugins.folderauth.acls.NegativeDecisionStatistics;
 import io.jenkins.plugins.folderauth.misc.AgentRoleCreationRequest;
 import io.jenkins.plugins.folderauth.misc.FolderRoleCreationRequest;
 import io.jenkins.plugins.folderauth.misc.GlobalRoleCreationRequest;
@@ -39,8 +41,11 @@ import java.util.stream.Collectors;
 import javax.annotation.ParametersAreNonnullByDefault;
 import jenkins.model.Jenkins;
 import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
 import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.Stapler;
 import org.kohsuke.stapler.export.ExportedBean;
@@ -333,6 +338,91 @@ public class FolderAuthorizationStrategyManagementLink extends ManagementLink {
         }
     }
 
+    /**
+     * Returns the statistics of the cache of {@link hudson.security.ACL}s of jobs of the current strategy.
+     *
+     * @return the statistics of the cache
+     * @throws IllegalStateException when {@link Jenkins#getAuthorizationStrategy()} is
+     *                               not {@link FolderBasedAuthorizationStrategy}
+     */
+    @NonNull
+    @Restricted(NoExternalUse.class)
+    @SuppressWarnings("unused") // used by index.jelly
+    public CacheStats getJobAclCacheStats() {
+        return getStrategy().getJobAclCacheStats();
+    }
+
+    @Restricted(NoExternalUse.class)
+    @SuppressWarnings("unused") // used by index.jelly
+    public long getJobAclCacheSize() {
+        return getStrategy().getJobAclCacheSize();
+    }
+
+    @Restricted(NoExternalUse.class)
+    @SuppressWarnings("unused") // used by index.jelly
+    public long getNegativeDecisionLookupCount() {
+        return NegativeDecisionStatistics.getLookupCount();
+    }
+
+    @Restricted(NoExternalUse.class)
+    @SuppressWarnings("unused") // used by index.jelly
+    public long getNegativeDecisionHitCount() {
+        return NegativeDecisionStatistics.getHitCount();
+    }
+
+    @Restricted(NoExternalUse.class)
+    @SuppressWarnings("unused") // used by index.jelly
+    public double getNegativeDecisionHitRate() {
+        return NegativeDecisionStatistics.getHitRate();
+    }
+
+    @CheckForNull
+    @Restricted(NoExternalUse.class)
+    @SuppressWarnings("unused") // used by index.jelly
+    public AclCacheWarmUp.Progress getCacheWarmUp() {
+        return AclCacheWarmUp.getProgress();
+    }
+
+    /**
+     * Starts computing the {@link hudson.security.ACL}s of jobs in the background, cancelling the running
+     * warm-up.
+     *
+     * @return a redirect to the management page
+     * @throws IllegalStateException when {@link Jenkins#getAuthorizationStrategy()} is
+     *                               not {@link FolderBasedAuthorizationStrategy}
+     */
+    @RequirePOST
+    @Restricted(NoExternalUse.class)
+    public HttpResponse doStartCacheWarmUp() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        getStrategy();
+        AclCacheWarmUp.start();
+        return HttpResponses.redirectToDot();
+    }
+
+    /**
+     * Cancels the running warm-up of the {@link hudson.security.ACL}s, if any.
+     *
+     * @return a redirect to the management page
+     */
+    @RequirePOST
+    @Restricted(NoExternalUse.class)
+    public HttpResponse doCancelCacheWarmUp() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        AclCacheWarmUp.cancel();
+        return HttpResponses.redirectToDot();
+    }
+
+    @NonNull
+    private static FolderBasedAuthorizationStrategy getStrategy() {
+        AuthorizationStrategy strategy = Jenkins.get().getAuthorizationStrategy();
+        if (strategy instanceof FolderBasedAuthorizationStrategy) {
+            return (FolderBasedAuthorizationStrategy) strategy;
+        } else {
+            throw new IllegalStateException(Messages.FolderBasedAuthorizationStrategy_NotCurrentStrategy());
+        }
+    }
+
     /**
      * Deletes a global role.
      *
@@ -442,4 +532,59 @@ public class FolderAuthorizationStrategyManagementLink extends ManagementLink {
         FolderAuthorizationStrategyAPI.removeSidFromAgentRole(sid, roleName);
         redirect();
     }
+
+    /**
+     * Returns the roles, folders and agents {@code sid} has been assigned to.
+     *
+     * @param sid the sid of the user/group
+     * @return the names of the roles, folders and agents of the sid
+     * @throws IllegalStateException when {@link Jenkins#getAuthorizationStrategy()} is
+     *                               not {@link FolderBasedAuthorizationStrategy}
+     */
+    @GET
+    @NonNull
+    @Restricted(NoExternalUse.class)
+    public JSONObject doGetSidAssignments(@QueryParameter(required = true) String sid) {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        return FolderAuthorizationStrategyAPI.getAssignments(sid).toJSON();
+    }
+
+    /**
+     * Returns the sids holding a permission, directly or through an implying permission, and where they hold it.
+     *
+     * @param permission the id of the permission, e.g. {@code hudson.model.Item.Configure}
+     * @return the sid, scope, folder or agent and role of every grant of the permission
+     * @throws IllegalStateException    when {@link Jenkins#getAuthorizationStrategy()} is
+     *                                  not {@link FolderBasedAuthorizationStrategy}
+     * @throws IllegalArgumentException when no permission with the given id exists.
+     */
+    @GET
+    @NonNull
+    @Restricted(NoExternalUse.class)
+    public JSONArray doGetPermissionGrants(@QueryParameter(required = true) String permission) {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        Permission p = Permission.fromId(permission);
+        if (p == null) {
+            throw new IllegalArgumentException("No permission with id = \"" + permission + "\" exists");
+        }
+
+        JSONArray grants = new JSONArray();
+        FolderAuthorizationStrategyAPI.getGrants(p).forEach(grant -> grants.add(grant.toJSON()));
+        return grants;
+    }
+
+    /**
+     * Removes {@code sid} from all global, folder and agent roles.
+     *
+     * @param sid the sid of the user/group to be removed.
+     * @throws IllegalStateException when {@link Jenkins#getAuthorizationStrategy()} is
+     *                               not {@link FolderBasedAuthorizationStrategy}
+     */
+    @RequirePOST
+    @Restricted(NoExternalUse.class)
+    public void doRemoveSidFromAllRoles(@QueryParameter(required = true) String sid) {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        FolderAuthorizationStrategyAPI.removeSidFromAllRoles(sid);
+        redirect();
+    }
 }
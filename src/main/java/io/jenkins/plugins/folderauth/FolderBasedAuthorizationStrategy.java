@@ -1,39 +1,61 @@
 package io.jenkins.plugins.folderauth;
 
+import com.google.common.base.Throwables;
 import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.Extension;
 import hudson.model.AbstractItem;
 import hudson.model.Computer;
 import hudson.model.Descriptor;
+import hudson.model.Item;
 import hudson.model.Job;
 import hudson.security.ACL;
 import hudson.security.AuthorizationStrategy;
 import hudson.security.Permission;
 import hudson.security.PermissionGroup;
 import hudson.security.SidACL;
+import io.jenkins.plugins.folderauth.acls.AclInterner;
+import io.jenkins.plugins.folderauth.acls.FolderAclTrie;
 import io.jenkins.plugins.folderauth.acls.GenericAclImpl;
 import io.jenkins.plugins.folderauth.acls.GlobalAclImpl;
+import io.jenkins.plugins.folderauth.acls.PermissionGrantIndex;
+import io.jenkins.plugins.folderauth.misc.PermissionGrant;
 import io.jenkins.plugins.folderauth.misc.PermissionWrapper;
+import io.jenkins.plugins.folderauth.misc.SidAssignments;
 import io.jenkins.plugins.folderauth.roles.AbstractRole;
 import io.jenkins.plugins.folderauth.roles.AgentRole;
 import io.jenkins.plugins.folderauth.roles.FolderRole;
 import io.jenkins.plugins.folderauth.roles.GlobalRole;
+import java.util.AbstractMap;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import javax.annotation.ParametersAreNonnullByDefault;
 import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
 import net.sf.json.JSONObject;
 import org.acegisecurity.acls.sid.PrincipalSid;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.StaplerRequest2;
+import org.springframework.security.core.Authentication;
 
 /**
  * An {@link AuthorizationStrategy} that controls access to {@link com.cloudbees.hudson.plugins.folder.AbstractFolder}s
@@ -49,7 +71,64 @@ import org.kohsuke.stapler.StaplerRequest2;
 @ParametersAreNonnullByDefault
 public class FolderBasedAuthorizationStrategy extends AuthorizationStrategy {
     private static final String ADMIN_ROLE_NAME = "admin";
-    private static final String FOLDER_SEPARATOR = "/";
+
+    /**
+     * When enabled, every folder on which a {@link FolderRole} is applicable gets a single {@link ACL} merging the
+     * permissions from {@link GlobalRole}s, the roles on its ancestors and its own roles, instead of a chain of
+     * inheriting {@link ACL}s. Permission checks then cost the same at every depth, at the cost of memory.
+     */
+    @Restricted(NoExternalUse.class)
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Modifiable from the script console")
+    public static boolean FLATTEN_INHERITED_ACLS = SystemProperties.getBoolean(
+        FolderBasedAuthorizationStrategy.class.getName() + ".flattenInheritedAcls");
+
+    /**
+     * When enabled, the {@link ACL}s of jobs are compiled separately for each top-level folder. A change in the
+     * {@link FolderRole}s of one top-level folder then only recompiles the {@link ACL}s below that folder, and
+     * reuses the {@link ACL}s of all other top-level folders.
+     */
+    @Restricted(NoExternalUse.class)
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Modifiable from the script console")
+    public static boolean PARTITION_BY_TOP_LEVEL_FOLDER = SystemProperties.getBoolean(
+        FolderBasedAuthorizationStrategy.class.getName() + ".partitionByTopLevelFolder");
+
+    /**
+     * When enabled, the {@link ACL}s of jobs are partitioned as with {@link #PARTITION_BY_TOP_LEVEL_FOLDER}, but
+     * the {@link ACL}s of a partition are only compiled when an item below its top-level folder is first accessed.
+     * Until then, the partition only holds the {@link FolderRole}s assigned to its folders.
+     */
+    @Restricted(NoExternalUse.class)
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Modifiable from the script console")
+    public static boolean LAZY_JOB_ACLS = SystemProperties.getBoolean(
+        FolderBasedAuthorizationStrategy.class.getName() + ".lazyJobAcls");
+
+    /**
+     * When enabled, the permissions granted on an item are remembered for the rest of the HTTP request which
+     * first checked them. Pages listing many items then resolve the sids of the current user only once per item.
+     */
+    @Restricted(NoExternalUse.class)
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Modifiable from the script console")
+    public static boolean MEMOIZE_REQUEST_ACLS = SystemProperties.getBoolean(
+        FolderBasedAuthorizationStrategy.class.getName() + ".memoizeRequestAcls");
+
+    /**
+     * When enabled, the {@link ACL}s of jobs merge the permissions of all sids of an {@link Authentication} into
+     * a cached profile, so that checking a permission does not look up each of its authorities on every folder.
+     * Useful when users belong to hundreds of groups.
+     */
+    @Restricted(NoExternalUse.class)
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Modifiable from the script console")
+    public static boolean USE_PERMISSION_PROFILES = SystemProperties.getBoolean(
+        FolderBasedAuthorizationStrategy.class.getName() + ".usePermissionProfiles");
+
+    /**
+     * When enabled, the {@link ACL}s of jobs are computed in the background after startup and after every
+     * published change of the strategy, see {@link AclCacheWarmUp}.
+     */
+    @Restricted(NoExternalUse.class)
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Modifiable from the script console")
+    public static boolean WARM_UP_ACL_CACHES = SystemProperties.getBoolean(
+        FolderBasedAuthorizationStrategy.class.getName() + ".warmUpAclCaches");
 
     private final Set<AgentRole> agentRoles;
     private final Set<GlobalRole> globalRoles;
@@ -62,44 +141,383 @@ public class FolderBasedAuthorizationStrategy extends AuthorizationStrategy {
      */
     private transient GlobalAclImpl globalAcl;
     /**
-     * Maps full name of jobs to their respective {@link ACL}s. The {@link ACL}s here do not
-     * get inheritance from their parents.
+     * Indexes the {@link ACL}s of jobs by the components of their full names. Each node also
+     * holds the {@link ACL} inherited from its parents.
+     */
+    private transient FolderAclTrie jobAcls;
+    /**
+     * Maps the names of top-level folders to the {@link ACL}s of the jobs below them when
+     * {@link #PARTITION_BY_TOP_LEVEL_FOLDER} or {@link #LAZY_JOB_ACLS} is enabled; null otherwise. {@link #jobAcls} then only contains the
+     * {@link ACL} inherited from {@link #globalAcl}, for items outside of any partition.
      */
-    private transient ConcurrentHashMap<String, GenericAclImpl> jobAcls;
+    @CheckForNull
+    private transient Map<String, JobAclPartition> jobAclPartitions;
     /**
      * Maps full name of the Agents to their respective {@link ACL}s. Inheritance is not needed here
-     * because Agents are not nestable.
+     * because Agents are not nestable, and the permissions from {@link #globalAcl} are already merged in.
      */
     private transient ConcurrentHashMap<String, GenericAclImpl> agentAcls;
     /**
-     * Contains the ACLs for projects that do not need any further inheritance.
+     * Contains the ACLs for projects that do not need any further inheritance, keyed by the full name of the
+     * deepest folder on their path with a {@link FolderRole}, or an empty string when there is none.
      * <p>
      * Invalidate this cache whenever folder roles are updated.
      */
     private transient Cache<String, SidACL> jobAclCache;
+    /**
+     * Maps items to their {@link ACL}s without computing their full names. Keys are weak and compared by
+     * identity, so deleted items do not stay in the cache.
+     * <p>
+     * Entries are invalidated by {@link ItemAclCacheInvalidator} when an item is renamed or moved. Shared with
+     * the previous version of this strategy along with {@link #jobAclCache}.
+     */
+    private transient Cache<AbstractItem, SidACL> itemAclCache;
+    /**
+     * The options {@link #jobAcls} and {@link #jobAclPartitions} were built with. The options are read once per
+     * version, so that changing them from the script console only applies to the next version, which rebuilds
+     * everything that depends on them.
+     */
+    private transient Set<JobAclOption> jobAclOptions;
+    /**
+     * The settings {@link #jobAclCache} was created with.
+     */
+    private transient JobAclCacheSettings jobAclCacheSettings;
+    /**
+     * The statistics of the caches of the {@link ACL}s of jobs of all previous versions of this strategy.
+     */
+    private transient CacheStats previousJobAclCacheStats;
+    /**
+     * Maps the names of {@link #globalRoles} to the roles.
+     */
+    private transient Map<String, GlobalRole> globalRolesByName;
+    /**
+     * Maps the names of {@link #folderRoles} to the roles.
+     */
+    private transient Map<String, FolderRole> folderRolesByName;
+    /**
+     * Maps the names of {@link #agentRoles} to the roles.
+     */
+    private transient Map<String, AgentRole> agentRolesByName;
+    /**
+     * Maps every sid to the roles it has been assigned to. Never modified once built.
+     */
+    private transient Map<String, SidAssignments> sidAssignments;
+    /**
+     * Maps every permission to the roles granting it, including through implied permissions.
+     */
+    private transient PermissionGrantIndex permissionGrants;
 
     @DataBoundConstructor
     public FolderBasedAuthorizationStrategy(Set<GlobalRole> globalRoles, Set<FolderRole> folderRoles,
                                             Set<AgentRole> agentRoles) {
-        this.agentRoles = new HashSet<>(agentRoles);
-        this.globalRoles = new HashSet<>(globalRoles);
-        this.folderRoles = new HashSet<>(folderRoles);
+        this(new HashSet<>(globalRoles), new HashSet<>(folderRoles), new HashSet<>(agentRoles), null);
+    }
+
+    /**
+     * Creates a new {@link FolderBasedAuthorizationStrategy} reusing the {@link ACL}s of {@code previous} that
+     * are not affected by the changes in the roles.
+     * <p>
+     * The sets are not copied; they must not be modified afterwards. A set of {@code previous} passed here is
+     * shared with it, along with everything computed from it.
+     */
+    private FolderBasedAuthorizationStrategy(Set<GlobalRole> globalRoles, Set<FolderRole> folderRoles,
+                                             Set<AgentRole> agentRoles,
+                                             @CheckForNull FolderBasedAuthorizationStrategy previous) {
+        this(globalRoles, folderRoles, agentRoles, previous, null);
+    }
+
+    /**
+     * @param jobAclCacheSettings the settings of the cache of {@link ACL}s of jobs, or null to keep those of
+     *                            {@code previous}, or to use those of the {@link DescriptorImpl} without it
+     */
+    private FolderBasedAuthorizationStrategy(Set<GlobalRole> globalRoles, Set<FolderRole> folderRoles,
+                                             Set<AgentRole> agentRoles,
+                                             @CheckForNull FolderBasedAuthorizationStrategy previous,
+                                             @CheckForNull JobAclCacheSettings jobAclCacheSettings) {
+        this.agentRoles = agentRoles;
+        this.globalRoles = globalRoles;
+        this.folderRoles = folderRoles;
 
         // the sets above should NOT be modified. They are not Collections.unmodifiableSet()
         // because that complicates the serialized XML and add unnecessary nesting.
 
-        init();
+        init(previous, jobAclCacheSettings);
+    }
+
+    /**
+     * Returns a new {@link FolderBasedAuthorizationStrategy} with the given {@link GlobalRole}s and the other
+     * roles of this strategy.
+     *
+     * @param globalRoles the global roles of the new strategy, which must not be modified afterwards
+     * @return a new strategy
+     */
+    @NonNull
+    FolderBasedAuthorizationStrategy withGlobalRoles(Set<GlobalRole> globalRoles) {
+        return new FolderBasedAuthorizationStrategy(globalRoles, folderRoles, agentRoles, this);
+    }
+
+    /**
+     * Returns a new {@link FolderBasedAuthorizationStrategy} with the given {@link FolderRole}s and the other
+     * roles of this strategy.
+     *
+     * @param folderRoles the folder roles of the new strategy, which must not be modified afterwards
+     * @return a new strategy
+     */
+    @NonNull
+    FolderBasedAuthorizationStrategy withFolderRoles(Set<FolderRole> folderRoles) {
+        return new FolderBasedAuthorizationStrategy(globalRoles, folderRoles, agentRoles, this);
     }
 
     /**
-     * Clears and recalculates {@code jobAcls}.
+     * Returns a new {@link FolderBasedAuthorizationStrategy} with the given {@link AgentRole}s and the other
+     * roles of this strategy.
+     *
+     * @param agentRoles the agent roles of the new strategy, which must not be modified afterwards
+     * @return a new strategy
      */
-    private void updateJobAcls() {
-        jobAcls.clear();
+    @NonNull
+    FolderBasedAuthorizationStrategy withAgentRoles(Set<AgentRole> agentRoles) {
+        return new FolderBasedAuthorizationStrategy(globalRoles, folderRoles, agentRoles, this);
+    }
+
+    /**
+     * Returns a new {@link FolderBasedAuthorizationStrategy} with the given roles. The sets must not be modified
+     * afterwards.
+     *
+     * @param globalRoles the global roles of the new strategy, or null to keep the global roles of this strategy
+     * @param folderRoles the folder roles of the new strategy, or null to keep the folder roles of this strategy
+     * @param agentRoles  the agent roles of the new strategy, or null to keep the agent roles of this strategy
+     * @return a new strategy
+     */
+    @NonNull
+    FolderBasedAuthorizationStrategy withRoles(@CheckForNull Set<GlobalRole> globalRoles,
+                                               @CheckForNull Set<FolderRole> folderRoles,
+                                               @CheckForNull Set<AgentRole> agentRoles) {
+        return new FolderBasedAuthorizationStrategy(globalRoles == null ? this.globalRoles : globalRoles,
+            folderRoles == null ? this.folderRoles : folderRoles, agentRoles == null ? this.agentRoles : agentRoles,
+            this);
+    }
+
+    /**
+     * Returns a new {@link FolderBasedAuthorizationStrategy} with the roles of this strategy, whose cache of
+     * {@link ACL}s of jobs is created with the given settings.
+     *
+     * @param jobAclCacheSettings the settings of the cache of the new strategy
+     * @return a new strategy
+     */
+    @NonNull
+    FolderBasedAuthorizationStrategy withJobAclCacheSettings(JobAclCacheSettings jobAclCacheSettings) {
+        return new FolderBasedAuthorizationStrategy(globalRoles, folderRoles, agentRoles, this, jobAclCacheSettings);
+    }
+
+    /**
+     * @return the settings the cache of {@link ACL}s of jobs of this strategy was created with
+     */
+    @NonNull
+    JobAclCacheSettings getJobAclCacheSettings() {
+        return jobAclCacheSettings;
+    }
+
+    /**
+     * Returns a new {@link FolderBasedAuthorizationStrategy} in which {@code oldRole} is replaced by {@code newRole}.
+     *
+     * @param oldRole the role to be removed, if any
+     * @param newRole the role to be added, if any
+     * @return a new strategy
+     */
+    @NonNull
+    FolderBasedAuthorizationStrategy replaceGlobalRole(@CheckForNull GlobalRole oldRole,
+                                                       @CheckForNull GlobalRole newRole) {
+        return withGlobalRoles(replace(globalRoles, oldRole, newRole));
+    }
+
+    /**
+     * Returns a new {@link FolderBasedAuthorizationStrategy} in which {@code oldRole} is replaced by {@code newRole}.
+     *
+     * @param oldRole the role to be removed, if any
+     * @param newRole the role to be added, if any
+     * @return a new strategy
+     */
+    @NonNull
+    FolderBasedAuthorizationStrategy replaceFolderRole(@CheckForNull FolderRole oldRole,
+                                                       @CheckForNull FolderRole newRole) {
+        return withFolderRoles(replace(folderRoles, oldRole, newRole));
+    }
+
+    /**
+     * Returns a new {@link FolderBasedAuthorizationStrategy} in which {@code oldRole} is replaced by {@code newRole}.
+     *
+     * @param oldRole the role to be removed, if any
+     * @param newRole the role to be added, if any
+     * @return a new strategy
+     */
+    @NonNull
+    FolderBasedAuthorizationStrategy replaceAgentRole(@CheckForNull AgentRole oldRole,
+                                                      @CheckForNull AgentRole newRole) {
+        return withAgentRoles(replace(agentRoles, oldRole, newRole));
+    }
+
+    @NonNull
+    private static <R extends AbstractRole> Set<R> replace(Set<R> roles, @CheckForNull R oldRole,
+                                                          @CheckForNull R newRole) {
+        Set<R> newRoles = new HashSet<>(roles);
+        if (oldRole != null) {
+            newRoles.remove(oldRole);
+        }
+        if (newRole != null) {
+            newRoles.add(newRole);
+        }
+        return newRoles;
+    }
+
+    /**
+     * Recalculates {@code jobAcls}.
+     *
+     * @param previous the {@code jobAcls} of the previous version of this strategy, if any
+     */
+    private void updateJobAcls(@CheckForNull FolderAclTrie previous) {
+        jobAcls = new FolderAclTrie();
 
         for (FolderRole role : folderRoles) {
             updateAclForFolderRole(role);
         }
+
+        compile(jobAcls, globalAcl, previous, jobAclOptions.contains(JobAclOption.FLATTEN));
+    }
+
+    private static void compile(FolderAclTrie acls, GlobalAclImpl globalAcl, @CheckForNull FolderAclTrie previous,
+                                boolean flatten) {
+        if (flatten) {
+            acls.flatten(globalAcl, previous);
+        } else {
+            acls.inherit(globalAcl);
+        }
+    }
+
+    /**
+     * Recalculates {@code jobAclPartitions}, reusing the partitions of {@code previous} whose folder roles
+     * have not changed.
+     *
+     * @param previous the previous version of this strategy, if any
+     */
+    private void updateJobAclPartitions(@CheckForNull FolderBasedAuthorizationStrategy previous) {
+        Map<String, Set<Map.Entry<FolderRole, String>>> assignments = new HashMap<>();
+        for (FolderRole role : folderRoles) {
+            for (String name : role.getFolderNames()) {
+                assignments.computeIfAbsent(getTopLevelFolderName(name), n -> new HashSet<>())
+                           .add(new AbstractMap.SimpleImmutableEntry<>(role, name));
+            }
+        }
+
+        Map<String, JobAclPartition> previousPartitions = previous == null ? null : previous.jobAclPartitions;
+        boolean sameGlobalAcl = previous != null && previous.globalAcl == globalAcl;
+
+        Map<String, JobAclPartition> partitions = new HashMap<>();
+        Map<String, Callable<FolderAclTrie>> compilations = new HashMap<>();
+        assignments.forEach((name, partitionAssignments) -> {
+            JobAclPartition previousPartition = previousPartitions == null ? null : previousPartitions.get(name);
+            if (sameGlobalAcl && previousPartition != null
+                    && previousPartition.assignments.equals(partitionAssignments)) {
+                partitions.put(name, previousPartition);
+                return;
+            }
+
+            JobAclPartition partition = new JobAclPartition(partitionAssignments, globalAcl,
+                previousPartition == null ? null : previousPartition.getCompiledAcls(),
+                jobAclOptions.contains(JobAclOption.FLATTEN));
+            partitions.put(name, partition);
+            if (!jobAclOptions.contains(JobAclOption.LAZY)) {
+                // partitions do not share anything, so they are compiled in parallel
+                compilations.put(name, partition::getAcls);
+            }
+        });
+        AclCompiler.compileAll(compilations);
+
+        jobAclPartitions = Collections.unmodifiableMap(partitions);
+        jobAcls = new FolderAclTrie();
+        jobAcls.inherit(globalAcl);
+    }
+
+    /**
+     * Returns the {@link FolderAclTrie} containing the {@link ACL} of the item with the given full name.
+     *
+     * @param fullName the full name of the item
+     * @return the {@link FolderAclTrie} of the partition of the item
+     */
+    @NonNull
+    FolderAclTrie getJobAcls(String fullName) {
+        if (jobAclPartitions == null) {
+            return jobAcls;
+        }
+        JobAclPartition partition = jobAclPartitions.get(getTopLevelFolderName(fullName));
+        return partition == null ? jobAcls : partition.getAcls();
+    }
+
+    /**
+     * Copies the {@link ACL}s cached by {@code previous} into {@link #jobAclCache}, except those of folders on or
+     * below folders whose {@link FolderRole}s have changed.
+     * <p>
+     * A role added below a cached folder does not affect its entry: items below the new role resolve to a new key.
+     * <p>
+     * The cache of {@code previous} is copied rather than shared, because threads still using {@code previous}
+     * may keep adding {@link ACL}s computed from its roles.
+     *
+     * @param previous the previous version of this strategy, with the same {@link #globalAcl}
+     */
+    private void copyUnaffectedJobAcls(FolderBasedAuthorizationStrategy previous) {
+        Set<String> changedFolders = getChangedFolders(previous.folderRoles, folderRoles);
+        for (Map.Entry<String, SidACL> entry : previous.jobAclCache.asMap().entrySet()) {
+            if (!isOnOrBelow(entry.getKey(), changedFolders)) {
+                jobAclCache.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns the folders on which the {@link FolderRole}s of the two sets differ.
+     * <p>
+     * Roles are compared by identity, because modifications keep the instances of unchanged roles. A role
+     * replaced by an equal instance is reported as changed, which only invalidates more than needed.
+     */
+    @NonNull
+    private static Set<String> getChangedFolders(Set<FolderRole> oldRoles, Set<FolderRole> newRoles) {
+        if (oldRoles == newRoles) {
+            return Collections.emptySet();
+        }
+
+        Set<FolderRole> old = Collections.newSetFromMap(new IdentityHashMap<>());
+        old.addAll(oldRoles);
+        Set<String> changedFolders = new HashSet<>();
+        for (FolderRole role : newRoles) {
+            if (!old.remove(role)) {
+                changedFolders.addAll(role.getFolderNames());
+            }
+        }
+        for (FolderRole role : old) {
+            changedFolders.addAll(role.getFolderNames());
+        }
+        return changedFolders;
+    }
+
+    /**
+     * Checks whether {@code fullName} or any of its ancestors is one of {@code folders}.
+     */
+    private static boolean isOnOrBelow(String fullName, Set<String> folders) {
+        if (folders.isEmpty()) {
+            return false;
+        }
+        for (int end = fullName.indexOf('/'); end >= 0; end = fullName.indexOf('/', end + 1)) {
+            if (folders.contains(fullName.substring(0, end))) {
+                return true;
+            }
+        }
+        return folders.contains(fullName);
+    }
+
+    @NonNull
+    private static String getTopLevelFolderName(String fullName) {
+        int end = fullName.indexOf('/');
+        return end < 0 ? fullName : fullName.substring(0, end);
     }
 
     private synchronized void updateAgentAcls() {
@@ -108,6 +526,10 @@ public class FolderBasedAuthorizationStrategy extends AuthorizationStrategy {
         for (AgentRole role : agentRoles) {
             updateAclForAgentRole(role);
         }
+
+        // agents with the same roles share one ACL
+        AclInterner interner = new AclInterner();
+        agentAcls.replaceAll((agent, acl) -> interner.intern(acl));
     }
 
     /**
@@ -129,7 +551,9 @@ public class FolderBasedAuthorizationStrategy extends AuthorizationStrategy {
     @NonNull
     @SuppressWarnings("unused")
     private FolderBasedAuthorizationStrategy readResolve() {
-        init();
+        init(null, null);
+        // e.g. when the configuration is reloaded from disk
+        AclCacheWarmUp.warmUpAfterChange(this);
         return this;
     }
 
@@ -150,29 +574,158 @@ public class FolderBasedAuthorizationStrategy extends AuthorizationStrategy {
     @NonNull
     @Override
     public SidACL getACL(AbstractItem item) {
-        String fullName = item.getFullName();
-        SidACL acl = jobAclCache.getIfPresent(fullName);
+        if (MEMOIZE_REQUEST_ACLS) {
+            RequestAclMemo memo = RequestAclMemo.get(this);
+            if (memo != null) {
+                return memo.getAcl(item.getFullName());
+            }
+        }
 
+        SidACL acl = itemAclCache.getIfPresent(item);
         if (acl != null) {
             return acl;
         }
 
-        String[] splits = fullName.split(FOLDER_SEPARATOR);
-        StringBuilder sb = new StringBuilder(fullName.length());
-        acl = globalAcl;
+        String fullName = item.getFullName();
+        acl = getJobAcl(fullName);
+        itemAclCache.put(item, acl);
+        if (!fullName.equals(item.getFullName())) {
+            // the item was moved after its full name was computed, and may have been invalidated before the put
+            itemAclCache.invalidate(item);
+        }
+        return acl;
+    }
+
+    /**
+     * Invalidates the cached {@link ACL} of an item which has been renamed or moved.
+     *
+     * @param item the item
+     */
+    static void invalidateItemAcl(Item item) {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        AuthorizationStrategy strategy = jenkins == null ? null : jenkins.getAuthorizationStrategy();
+        if (strategy instanceof FolderBasedAuthorizationStrategy) {
+            ((FolderBasedAuthorizationStrategy) strategy).itemAclCache.invalidate(item);
+        }
+    }
+
+    @NonNull
+    private SidACL getJobAcl(String fullName) {
+        // all items below the same folder with roles share its ACL, and one entry in the cache
+        String ruledFolder = getJobAcls(fullName).getNearestRuledFolder(fullName);
+        try {
+            // concurrent misses on the same folder wait for a single computation
+            return jobAclCache.get(ruledFolder, () -> computeJobAcl(ruledFolder));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException("Unable to compute the ACL of " + fullName, e.getCause());
+        }
+    }
+
+    /**
+     * Returns the keys of the cache of the {@link ACL}s of jobs: the folders with a {@link FolderRole}, and the
+     * empty string for items below none of them.
+     *
+     * @return the folders whose {@link ACL}s are shared by all items below them
+     */
+    @NonNull
+    Set<String> getRuledFolders() {
+        Set<String> folders = new LinkedHashSet<>();
+        folders.add("");
+        for (FolderRole role : folderRoles) {
+            folders.addAll(role.getFolderNames());
+        }
+        return folders;
+    }
+
+    /**
+     * Computes and caches the {@link ACL} shared by all items below a folder, compiling the {@link ACL}s of its
+     * top-level folder if they are compiled lazily.
+     *
+     * @param ruledFolder one of {@link #getRuledFolders()}
+     */
+    void warmUpJobAcl(String ruledFolder) {
+        getJobAcl(ruledFolder);
+    }
+
+    /**
+     * @return the maximum number of {@link ACL}s kept in the cache of the {@link ACL}s of jobs
+     */
+    long getJobAclCacheMaximumSize() {
+        return jobAclCacheSettings.getMaximumSize();
+    }
 
+    @NonNull
+    private SidACL computeJobAcl(String fullName) {
         // Roles on a folder are applicable to all children
-        for (String str : splits) {
-            sb.append(str);
-            SidACL newAcl = jobAcls.get(sb.toString());
-            if (newAcl != null) {
-                acl = acl.newInheritingACL(newAcl);
-            }
-            sb.append(FOLDER_SEPARATOR);
+        FolderAclTrie acls = getJobAcls(fullName);
+        return jobAclOptions.contains(JobAclOption.PROFILES) ? acls.getProfiledAcl(fullName)
+                                                             : acls.getInheritedAcl(fullName);
+    }
+
+    /**
+     * Returns the statistics of the cache of the {@link ACL}s of jobs, including those of the previous versions
+     * of this strategy.
+     *
+     * @return the statistics of the cache
+     */
+    @NonNull
+    @Restricted(NoExternalUse.class)
+    public CacheStats getJobAclCacheStats() {
+        return previousJobAclCacheStats.plus(jobAclCache.stats());
+    }
+
+    /**
+     * Returns the statistics of the cache of {@link ACL}s by item of this version of the strategy.
+     *
+     * @return the statistics of the cache
+     */
+    @NonNull
+    @Restricted(NoExternalUse.class)
+    public CacheStats getItemAclCacheStats() {
+        return itemAclCache.stats();
+    }
+
+    /**
+     * @return the approximate number of {@link ACL}s of jobs in the cache
+     */
+    @Restricted(NoExternalUse.class)
+    public long getJobAclCacheSize() {
+        return jobAclCache.size();
+    }
+
+    /**
+     * Returns all permissions granted to {@code a} on {@code item}.
+     * <p>
+     * The {@link ACL}s applicable to the item are visited only once for all sids of {@code a}, so this is
+     * cheaper than calling {@link ACL#hasPermission2(Authentication, Permission)} for many permissions.
+     *
+     * @param a    the authentication
+     * @param item the item
+     * @return an immutable set of all permissions {@code a} has on {@code item}, including implied permissions
+     */
+    @NonNull
+    public Set<Permission> getGrantedPermissions(Authentication a, AbstractItem item) {
+        if (ACL.SYSTEM2.equals(a)) {
+            return Set.copyOf(Permission.getAll());
         }
+        String fullName = item.getFullName();
+        return getJobAcls(fullName).getGrantedPermissions(fullName, a);
+    }
 
-        jobAclCache.put(fullName, acl);
-        return acl;
+    /**
+     * Checks whether {@code a} can read the item with the given full name or any item below it.
+     * <p>
+     * Each folder keeps an index of the sids that have been granted {@link hudson.model.Item#READ} anywhere
+     * below it, so a folder under which {@code a} cannot see anything is rejected without checking its items.
+     *
+     * @param a        the authentication
+     * @param fullName the full name of the item
+     * @return false when {@code a} cannot read the item or anything below it
+     * @see VisibleItems
+     */
+    public boolean canReadAnythingBelow(Authentication a, String fullName) {
+        return ACL.SYSTEM2.equals(a) || getJobAcls(fullName).canReadAnythingBelow(fullName, a);
     }
 
     /**
@@ -181,27 +734,50 @@ public class FolderBasedAuthorizationStrategy extends AuthorizationStrategy {
     @NonNull
     @Override
     public SidACL getACL(@NonNull Computer computer) {
-        String name = computer.getName();
-        SidACL acl = agentAcls.get(name);
-        if (acl == null) {
-            return globalAcl;
-        } else {
-            // TODO: cache these ACLs
-            return globalAcl.newInheritingACL(acl);
-        }
+        SidACL acl = agentAcls.get(computer.getName());
+        return acl == null ? globalAcl : acl;
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The sids are collected once when this strategy is created.
+     *
+     * @return an immutable view of the sids assigned to any role
      */
     @NonNull
     @Override
     public Collection<String> getGroups() {
-        Set<String> groups = ConcurrentHashMap.newKeySet();
-        agentRoles.stream().parallel().map(AbstractRole::getSids).forEach(groups::addAll);
-        globalRoles.stream().parallel().map(AbstractRole::getSids).forEach(groups::addAll);
-        folderRoles.stream().parallel().map(AbstractRole::getSids).forEach(groups::addAll);
-        return Collections.unmodifiableCollection(groups);
+        return sidAssignments.keySet();
+    }
+
+    /**
+     * Returns the roles {@code sid} has been assigned to.
+     * <p>
+     * The roles of every sid are indexed when this strategy is created, so this does not depend on the
+     * number of roles.
+     *
+     * @param sid the sid of a user or group
+     * @return the roles of the sid; {@link SidAssignments#EMPTY} when the sid has not been assigned to any role
+     */
+    @NonNull
+    public SidAssignments getAssignments(String sid) {
+        return sidAssignments.getOrDefault(sid, SidAssignments.EMPTY);
+    }
+
+    /**
+     * Returns the sids holding {@code permission} and where they hold it.
+     * <p>
+     * Implications between permissions are taken into account, so the sids of a role with
+     * {@link Jenkins#ADMINISTER} are returned for every permission. Grants on a folder are applicable to everything
+     * below it.
+     *
+     * @param permission the permission
+     * @return one {@link PermissionGrant} for every sid and folder or agent on which it holds the permission
+     */
+    @NonNull
+    public List<PermissionGrant> getGrants(Permission permission) {
+        return permissionGrants.getGrants(permission);
     }
 
     /**
@@ -234,6 +810,39 @@ public class FolderBasedAuthorizationStrategy extends AuthorizationStrategy {
         return Collections.unmodifiableSet(folderRoles);
     }
 
+    /**
+     * Returns the {@link GlobalRole} with the given name.
+     *
+     * @param name the name of the role
+     * @return the role, or null if no global role has that name
+     */
+    @CheckForNull
+    public GlobalRole getGlobalRole(String name) {
+        return globalRolesByName.get(name);
+    }
+
+    /**
+     * Returns the {@link FolderRole} with the given name.
+     *
+     * @param name the name of the role
+     * @return the role, or null if no folder role has that name
+     */
+    @CheckForNull
+    public FolderRole getFolderRole(String name) {
+        return folderRolesByName.get(name);
+    }
+
+    /**
+     * Returns the {@link AgentRole} with the given name.
+     *
+     * @param name the name of the role
+     * @return the role, or null if no agent role has that name
+     */
+    @CheckForNull
+    public AgentRole getAgentRole(String name) {
+        return agentRolesByName.get(name);
+    }
+
     /**
      * Updates the ACL for the folder role
      * <p>
@@ -244,8 +853,9 @@ public class FolderBasedAuthorizationStrategy extends AuthorizationStrategy {
      * @param role the role to be updated
      */
     private void updateAclForFolderRole(FolderRole role) {
+        Set<Permission> permissions = getPermissions(role);
         for (String name : role.getFolderNames()) {
-            updateGenericAcl(name, jobAcls, role);
+            jobAcls.getOrCreateAcl(name).assignPermissions(role.getSids(), permissions);
         }
     }
 
@@ -268,46 +878,343 @@ public class FolderBasedAuthorizationStrategy extends AuthorizationStrategy {
         GenericAclImpl acl = acls.get(fullName);
         if (acl == null) {
             acl = new GenericAclImpl();
+            acl.inheritPermissions(globalAcl);
         }
-        acl.assignPermissions(role.getSids(),
-            role.getPermissionsUnsorted().stream().map(PermissionWrapper::getPermission).collect(Collectors.toSet()));
+        acl.assignPermissions(role.getSids(), getPermissions(role));
         acls.put(fullName, acl);
     }
 
+    @NonNull
+    private static Set<Permission> getPermissions(AbstractRole role) {
+        return role.getPermissionsUnsorted().stream().map(PermissionWrapper::getPermission)
+                   .collect(Collectors.toSet());
+    }
+
+    @NonNull
+    private static <R extends AbstractRole> Map<String, R> indexByName(Set<R> roles) {
+        Map<String, R> rolesByName = new HashMap<>();
+        for (R role : roles) {
+            rolesByName.put(role.getName(), role);
+        }
+        return Collections.unmodifiableMap(rolesByName);
+    }
+
+    /**
+     * Recalculates {@code sidAssignments}.
+     */
+    private void updateSidAssignments() {
+        Map<String, Set<GlobalRole>> sidGlobalRoles = new HashMap<>();
+        Map<String, Set<FolderRole>> sidFolderRoles = new HashMap<>();
+        Map<String, Set<AgentRole>> sidAgentRoles = new HashMap<>();
+        Set<String> sids = new HashSet<>();
+
+        for (GlobalRole role : globalRoles) {
+            for (String sid : role.getSids()) {
+                sidGlobalRoles.computeIfAbsent(sid, s -> new HashSet<>()).add(role);
+                sids.add(sid);
+            }
+        }
+        for (FolderRole role : folderRoles) {
+            for (String sid : role.getSids()) {
+                sidFolderRoles.computeIfAbsent(sid, s -> new HashSet<>()).add(role);
+                sids.add(sid);
+            }
+        }
+        for (AgentRole role : agentRoles) {
+            for (String sid : role.getSids()) {
+                sidAgentRoles.computeIfAbsent(sid, s -> new HashSet<>()).add(role);
+                sids.add(sid);
+            }
+        }
+
+        Map<String, SidAssignments> assignments = new HashMap<>();
+        for (String sid : sids) {
+            assignments.put(sid, new SidAssignments(
+                sidGlobalRoles.getOrDefault(sid, Collections.emptySet()),
+                sidFolderRoles.getOrDefault(sid, Collections.emptySet()),
+                sidAgentRoles.getOrDefault(sid, Collections.emptySet())));
+        }
+        sidAssignments = Collections.unmodifiableMap(assignments);
+    }
+
     /**
      * Initializes the cache, generates ACLs and makes the {@link FolderBasedAuthorizationStrategy}
      * ready to work.
+     * <p>
+     * Everything computed only from role sets shared with {@code previous} is reused by reference.
+     *
+     * @param previous            the previous version of this strategy whose {@link ACL}s may be reused, if any
+     * @param jobAclCacheSettings the settings of the cache of {@link ACL}s of jobs, or null to keep those of
+     *                            {@code previous}
+     */
+    private void init(@CheckForNull FolderBasedAuthorizationStrategy previous,
+                      @CheckForNull JobAclCacheSettings jobAclCacheSettings) {
+        // agent ACLs and flattened folder ACLs copy the permissions of globalAcl, so it is rebuilt along with
+        // everything depending on it when a permission has been registered since it was created
+        boolean sameGlobalRoles = previous != null && previous.globalRoles == globalRoles
+                                      && previous.globalAcl.isUpToDate();
+        boolean sameFolderRoles = previous != null && previous.folderRoles == folderRoles;
+        boolean sameAgentRoles = previous != null && previous.agentRoles == agentRoles;
+        jobAclOptions = JobAclOption.current();
+        // the ACLs of jobs of previous are only reused when they were built the same way
+        boolean sameJobAclOptions = previous != null && previous.jobAclOptions.equals(jobAclOptions);
+
+        if (sameGlobalRoles) {
+            globalRolesByName = previous.globalRolesByName;
+            globalAcl = previous.globalAcl;
+        } else {
+            globalRolesByName = indexByName(globalRoles);
+            globalAcl = new GlobalAclImpl(globalRoles);
+        }
+
+        folderRolesByName = sameFolderRoles ? previous.folderRolesByName : indexByName(folderRoles);
+        agentRolesByName = sameAgentRoles ? previous.agentRolesByName : indexByName(agentRoles);
+
+        if (jobAclCacheSettings != null) {
+            this.jobAclCacheSettings = jobAclCacheSettings;
+        } else if (previous != null) {
+            this.jobAclCacheSettings = previous.jobAclCacheSettings;
+        } else {
+            this.jobAclCacheSettings = getCurrentJobAclCacheSettings();
+        }
+        if (sameGlobalRoles && sameFolderRoles && sameJobAclOptions
+                && this.jobAclCacheSettings.equals(previous.jobAclCacheSettings)) {
+            jobAclCache = previous.jobAclCache;
+            itemAclCache = previous.itemAclCache;
+            previousJobAclCacheStats = previous.previousJobAclCacheStats;
+        } else {
+            jobAclCache = this.jobAclCacheSettings.build();
+            itemAclCache = this.jobAclCacheSettings.buildItemCache();
+            previousJobAclCacheStats = previous == null ? new CacheStats(0, 0, 0, 0, 0, 0) :
+                                           previous.getJobAclCacheStats();
+            if (sameGlobalRoles && sameJobAclOptions) {
+                // every ACL inherits from globalAcl, so the cache can only be kept when it is the same
+                copyUnaffectedJobAcls(previous);
+            }
+        }
+
+        // the remaining parts only depend on the roles and on globalAcl
+        AclCompiler.runAll(() -> {
+            if (sameGlobalRoles && sameFolderRoles && sameJobAclOptions) {
+                jobAcls = previous.jobAcls;
+                jobAclPartitions = previous.jobAclPartitions;
+            } else {
+                if (jobAclOptions.contains(JobAclOption.PARTITION) || jobAclOptions.contains(JobAclOption.LAZY)) {
+                    updateJobAclPartitions(sameJobAclOptions ? previous : null);
+                } else {
+                    jobAclPartitions = null;
+                    updateJobAcls(sameJobAclOptions ? previous.jobAcls : null);
+                }
+            }
+        }, () -> {
+            if (sameGlobalRoles && sameAgentRoles) {
+                agentAcls = previous.agentAcls;
+            } else {
+                agentAcls = new ConcurrentHashMap<>();
+                updateAgentAcls();
+            }
+        }, this::updateSidAssignments,
+            () -> permissionGrants = new PermissionGrantIndex(globalRoles, folderRoles, agentRoles));
+    }
+
+    /**
+     * The options changing how the {@link ACL}s of jobs are built, each enabled by one of the toggles.
+     */
+    private enum JobAclOption {
+        FLATTEN, PARTITION, LAZY, PROFILES;
+
+        /**
+         * @return the options enabled at the moment
+         */
+        @NonNull
+        static Set<JobAclOption> current() {
+            Set<JobAclOption> options = EnumSet.noneOf(JobAclOption.class);
+            if (FLATTEN_INHERITED_ACLS) {
+                options.add(FLATTEN);
+            }
+            if (PARTITION_BY_TOP_LEVEL_FOLDER) {
+                options.add(PARTITION);
+            }
+            if (LAZY_JOB_ACLS) {
+                options.add(LAZY);
+            }
+            if (USE_PERMISSION_PROFILES) {
+                options.add(PROFILES);
+            }
+            return Collections.unmodifiableSet(options);
+        }
+    }
+
+    /**
+     * The {@link ACL}s of the jobs below one top-level folder, compiled when they are first needed.
      */
-    private void init() {
-        jobAcls = new ConcurrentHashMap<>();
-        agentAcls = new ConcurrentHashMap<>();
+    private static final class JobAclPartition {
+        /**
+         * The folder roles applicable on folders in this partition, with the full name of each folder.
+         * Used to find out whether the partition is affected by a change.
+         */
+        private final Set<Map.Entry<FolderRole, String>> assignments;
+        private final GlobalAclImpl globalAcl;
+        private final boolean flatten;
+        /**
+         * The compiled {@link ACL}s of the previous version of this partition, whose unchanged subtrees can be
+         * reused. Released once this partition is compiled.
+         */
+        @CheckForNull
+        private FolderAclTrie previous;
+        @CheckForNull
+        private volatile FolderAclTrie acls;
 
-        jobAclCache = CacheBuilder.newBuilder()
-                          .expireAfterWrite(1, TimeUnit.HOURS)
-                          .maximumSize(2048)
-                          .build();
+        private JobAclPartition(Set<Map.Entry<FolderRole, String>> assignments, GlobalAclImpl globalAcl,
+                                @CheckForNull FolderAclTrie previous, boolean flatten) {
+            this.assignments = assignments;
+            this.globalAcl = globalAcl;
+            this.previous = previous;
+            this.flatten = flatten;
+        }
 
-        globalAcl = new GlobalAclImpl(globalRoles);
-        updateJobAcls();
-        updateAgentAcls();
+        /**
+         * Returns the compiled {@link ACL}s of this partition, compiling them if needed.
+         *
+         * @return the compiled {@link ACL}s
+         */
+        @NonNull
+        FolderAclTrie getAcls() {
+            FolderAclTrie compiled = acls;
+            if (compiled == null) {
+                synchronized (this) {
+                    compiled = acls;
+                    if (compiled == null) {
+                        compiled = new FolderAclTrie();
+                        for (Map.Entry<FolderRole, String> assignment : assignments) {
+                            FolderRole role = assignment.getKey();
+                            compiled.getOrCreateAcl(assignment.getValue())
+                                .assignPermissions(role.getSids(), getPermissions(role));
+                        }
+                        compile(compiled, globalAcl, previous, flatten);
+                        previous = null;
+                        acls = compiled;
+                    }
+                }
+            }
+            return compiled;
+        }
+
+        /**
+         * Returns the compiled {@link ACL}s of this partition without compiling them.
+         *
+         * @return the compiled {@link ACL}s, or null if this partition has not been compiled yet
+         */
+        @CheckForNull
+        FolderAclTrie getCompiledAcls() {
+            return acls;
+        }
+    }
+
+    /**
+     * Returns the settings of the cache of {@link ACL}s of jobs configured on the 'Configure Global Security'
+     * page, or read from the system properties if Jenkins is not running.
+     */
+    @NonNull
+    private static JobAclCacheSettings getCurrentJobAclCacheSettings() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        DescriptorImpl descriptor = jenkins == null ? null : jenkins.getDescriptorByType(DescriptorImpl.class);
+        return descriptor == null ? JobAclCacheSettings.fromSystemProperties() : descriptor.getJobAclCacheSettings();
     }
 
     @Extension
     public static class DescriptorImpl extends Descriptor<AuthorizationStrategy> {
+        /**
+         * The settings of the cache of {@link ACL}s of jobs, or null to use the system properties.
+         */
+        @CheckForNull
+        private JobAclCacheSettings jobAclCacheSettings;
+
+        public DescriptorImpl() {
+            load();
+        }
+
         @NonNull
         @Override
         public String getDisplayName() {
             return Messages.FolderBasedAuthorizationStrategy_DisplayName();
         }
 
+        /**
+         * @return the settings of the cache of {@link ACL}s of jobs used by new versions of the strategy
+         */
+        @NonNull
+        @Restricted(NoExternalUse.class)
+        public JobAclCacheSettings getJobAclCacheSettings() {
+            JobAclCacheSettings settings = jobAclCacheSettings;
+            return settings == null ? JobAclCacheSettings.fromSystemProperties() : settings;
+        }
+
+        @NonNull
+        @Restricted(NoExternalUse.class)
+        public JobAclCacheSettings.ValueStrength[] getJobAclCacheValueStrengths() {
+            return JobAclCacheSettings.ValueStrength.values();
+        }
+
+        /**
+         * Persists the settings of the cache of {@link ACL}s of jobs of a published version of the strategy, so
+         * that the next start creates the cache with them.
+         *
+         * @param settings the settings of the cache of the published strategy
+         */
+        void setJobAclCacheSettings(JobAclCacheSettings settings) {
+            if (settings.equals(getJobAclCacheSettings())) {
+                return;
+            }
+            jobAclCacheSettings = settings;
+            save();
+        }
+
+        /**
+         * Reads the settings of the cache of {@link ACL}s of jobs submitted from the 'Configure Global Security'
+         * page, if any.
+         *
+         * @return the submitted settings, or null if none were submitted
+         */
+        @CheckForNull
+        private static JobAclCacheSettings readJobAclCacheSettings(JSONObject formData) throws FormException {
+            if (!formData.has("jobAclCacheMaximumSize")) {
+                return null;
+            }
+
+            try {
+                return new JobAclCacheSettings(formData.getLong("jobAclCacheMaximumSize"),
+                    formData.getLong("jobAclCacheItemMaximumSize"),
+                    formData.getLong("jobAclCacheExpireAfterWriteMinutes"),
+                    formData.getLong("jobAclCacheExpireAfterAccessMinutes"),
+                    JobAclCacheSettings.ValueStrength.valueOf(formData.getString("jobAclCacheValues")));
+            } catch (RuntimeException e) {
+                throw new FormException(e, "jobAclCacheMaximumSize");
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * The submitted settings of the cache of {@link ACL}s of jobs only apply to the returned strategy. They
+         * are persisted, and its caches are warmed up, by {@link PublishedStrategyListener} once Jenkins saved
+         * its configuration with it.
+         */
         @NonNull
         @Override
-        public FolderBasedAuthorizationStrategy newInstance(@Nullable StaplerRequest2 req, @NonNull JSONObject formData) {
+        public FolderBasedAuthorizationStrategy newInstance(@Nullable StaplerRequest2 req, @NonNull JSONObject formData)
+            throws FormException {
+            JobAclCacheSettings cacheSettings = readJobAclCacheSettings(formData);
             AuthorizationStrategy strategy = Jenkins.get().getAuthorizationStrategy();
             if (strategy instanceof FolderBasedAuthorizationStrategy) {
                 // this action was invoked from the 'Configure Global Security' page when the
-                // old strategy was FolderBasedAuthorizationStrategy; return it back as formData would be empty
-                return (FolderBasedAuthorizationStrategy) strategy;
+                // old strategy was FolderBasedAuthorizationStrategy; return it back as the roles are not part of
+                // formData. Only the cache of job ACLs is created again when its settings have changed.
+                FolderBasedAuthorizationStrategy current = (FolderBasedAuthorizationStrategy) strategy;
+                if (cacheSettings == null || cacheSettings.equals(current.jobAclCacheSettings)) {
+                    return current;
+                }
+                return current.withJobAclCacheSettings(cacheSettings);
             } else {
                 // when this AuthorizationStrategy is selected for the first time, this makes the current
                 // user admin (give all permissions) and prevents him/her from getting access denied.
@@ -321,8 +1228,8 @@ public class FolderBasedAuthorizationStrategy extends AuthorizationStrategy {
                 GlobalRole adminRole = new GlobalRole(ADMIN_ROLE_NAME, adminPermissions,
                     Collections.singleton(new PrincipalSid(Jenkins.getAuthentication()).getPrincipal()));
 
-                return new FolderBasedAuthorizationStrategy(Collections.singleton(adminRole), Collections.emptySet(),
-                    Collections.emptySet());
+                return new FolderBasedAuthorizationStrategy(new HashSet<>(Collections.singleton(adminRole)),
+                    new HashSet<>(), new HashSet<>(), null, cacheSettings);
             }
         }
     }
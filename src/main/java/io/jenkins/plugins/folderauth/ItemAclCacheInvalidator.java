@@ -0,0 +1,23 @@
+package io.jenkins.plugins.folderauth;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Invalidates the {@link hudson.security.ACL} cached by {@link FolderBasedAuthorizationStrategy} for an item
+ * when the item is renamed or moved.
+ * <p>
+ * Jenkins also notifies the location change of every item inside a renamed or moved folder, so each of them is
+ * invalidated as well.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public class ItemAclCacheInvalidator extends ItemListener {
+    @Override
+    public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+        FolderBasedAuthorizationStrategy.invalidateItemAcl(item);
+    }
+}
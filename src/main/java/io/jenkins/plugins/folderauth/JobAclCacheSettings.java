@@ -0,0 +1,173 @@
+package io.jenkins.plugins.folderauth;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.ParametersAreNonnullByDefault;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * The configuration of the cache of the {@link hudson.security.ACL}s of jobs in a
+ * {@link FolderBasedAuthorizationStrategy}.
+ * <p>
+ * Defaults are read from system properties named after {@link FolderBasedAuthorizationStrategy}, e.g.
+ * {@code io.jenkins.plugins.folderauth.FolderBasedAuthorizationStrategy.jobAclCacheMaximumSize}, and can be
+ * overridden on the 'Configure Global Security' page. Instances are immutable.
+ */
+@ParametersAreNonnullByDefault
+@Restricted(NoExternalUse.class)
+public final class JobAclCacheSettings {
+    private static final String PREFIX = FolderBasedAuthorizationStrategy.class.getName() + ".jobAclCache";
+
+    /**
+     * How the cached {@link hudson.security.ACL}s are referenced.
+     */
+    public enum ValueStrength {
+        STRONG,
+        /**
+         * The {@link hudson.security.ACL}s may be collected when memory is low.
+         */
+        SOFT,
+        /**
+         * The {@link hudson.security.ACL}s may be collected as soon as nothing else references them.
+         */
+        WEAK
+    }
+
+    private final long maximumSize;
+    private final long itemMaximumSize;
+    private final long expireAfterWriteMinutes;
+    private final long expireAfterAccessMinutes;
+    private final ValueStrength valueStrength;
+
+    /**
+     * @param maximumSize              the maximum number of cached {@link hudson.security.ACL}s
+     * @param itemMaximumSize          the maximum number of items mapped to their cached
+     *                                 {@link hudson.security.ACL}s
+     * @param expireAfterWriteMinutes  minutes after which a cached {@link hudson.security.ACL} is dropped, or 0
+     * @param expireAfterAccessMinutes minutes without access after which a cached {@link hudson.security.ACL} is
+     *                                 dropped, or 0
+     * @param valueStrength            how the cached {@link hudson.security.ACL}s are referenced
+     * @throws IllegalArgumentException when a number is negative
+     */
+    public JobAclCacheSettings(long maximumSize, long itemMaximumSize, long expireAfterWriteMinutes,
+                               long expireAfterAccessMinutes, ValueStrength valueStrength) {
+        if (maximumSize < 0 || itemMaximumSize < 0 || expireAfterWriteMinutes < 0 || expireAfterAccessMinutes < 0) {
+            throw new IllegalArgumentException("The settings of the job ACL cache must not be negative");
+        }
+        this.maximumSize = maximumSize;
+        this.itemMaximumSize = itemMaximumSize;
+        this.expireAfterWriteMinutes = expireAfterWriteMinutes;
+        this.expireAfterAccessMinutes = expireAfterAccessMinutes;
+        this.valueStrength = valueStrength;
+    }
+
+    /**
+     * Reads the settings from the system properties.
+     *
+     * @return the settings, with the historical defaults for properties that are not set
+     */
+    @NonNull
+    public static JobAclCacheSettings fromSystemProperties() {
+        ValueStrength valueStrength;
+        try {
+            valueStrength = ValueStrength.valueOf(SystemProperties.getString(PREFIX + "Values",
+                ValueStrength.STRONG.name()).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            valueStrength = ValueStrength.STRONG;
+        }
+        return new JobAclCacheSettings(
+            Math.max(0, SystemProperties.getLong(PREFIX + "MaximumSize", 2048L)),
+            Math.max(0, SystemProperties.getLong(PREFIX + "ItemMaximumSize", 65536L)),
+            Math.max(0, SystemProperties.getLong(PREFIX + "ExpireAfterWriteMinutes", 60L)),
+            Math.max(0, SystemProperties.getLong(PREFIX + "ExpireAfterAccessMinutes", 0L)),
+            valueStrength);
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getItemMaximumSize() {
+        return itemMaximumSize;
+    }
+
+    public long getExpireAfterWriteMinutes() {
+        return expireAfterWriteMinutes;
+    }
+
+    public long getExpireAfterAccessMinutes() {
+        return expireAfterAccessMinutes;
+    }
+
+    @NonNull
+    public ValueStrength getValueStrength() {
+        return valueStrength;
+    }
+
+    /**
+     * Creates a cache with these settings which records its statistics.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     * @return a new, empty cache
+     */
+    @NonNull
+    <K, V> Cache<K, V> build() {
+        return newBuilder(maximumSize).build();
+    }
+
+    /**
+     * Creates a cache of items with these settings which records its statistics. Keys are weak and compared by
+     * identity, and there may be up to {@link #getItemMaximumSize()} of them.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     * @return a new, empty cache
+     */
+    @NonNull
+    <K, V> Cache<K, V> buildItemCache() {
+        return newBuilder(itemMaximumSize).weakKeys().build();
+    }
+
+    @NonNull
+    private CacheBuilder<Object, Object> newBuilder(long size) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(size).recordStats();
+        if (expireAfterWriteMinutes > 0) {
+            builder.expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES);
+        }
+        if (expireAfterAccessMinutes > 0) {
+            builder.expireAfterAccess(expireAfterAccessMinutes, TimeUnit.MINUTES);
+        }
+        if (valueStrength == ValueStrength.SOFT) {
+            builder.softValues();
+        } else if (valueStrength == ValueStrength.WEAK) {
+            builder.weakValues();
+        }
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        JobAclCacheSettings that = (JobAclCacheSettings) o;
+        return maximumSize == that.maximumSize && itemMaximumSize == that.itemMaximumSize
+                   && expireAfterWriteMinutes == that.expireAfterWriteMinutes
+                   && expireAfterAccessMinutes == that.expireAfterAccessMinutes && valueStrength == that.valueStrength;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maximumSize, itemMaximumSize, expireAfterWriteMinutes, expireAfterAccessMinutes, valueStrength);
+    }
+}
@@ -0,0 +1,42 @@
+package io.jenkins.plugins.folderauth;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import hudson.security.AuthorizationStrategy;
+import jenkins.model.Jenkins;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Completes a change of {@link FolderBasedAuthorizationStrategy} submitted from the 'Configure Global Security'
+ * page once Jenkins saved its configuration with it: persists the settings of the cache of
+ * {@link hudson.security.ACL}s of jobs the strategy was created with, and warms up its caches.
+ * <p>
+ * A form rejected after {@link FolderBasedAuthorizationStrategy.DescriptorImpl#newInstance} returned is not
+ * saved, so its settings are never persisted.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public class PublishedStrategyListener extends SaveableListener {
+    @Override
+    public void onChange(Saveable o, XmlFile file) {
+        if (!(o instanceof Jenkins)) {
+            return;
+        }
+        Jenkins jenkins = (Jenkins) o;
+        AuthorizationStrategy strategy = jenkins.getAuthorizationStrategy();
+        if (!(strategy instanceof FolderBasedAuthorizationStrategy)) {
+            return;
+        }
+
+        FolderBasedAuthorizationStrategy published = (FolderBasedAuthorizationStrategy) strategy;
+        FolderBasedAuthorizationStrategy.DescriptorImpl descriptor =
+            jenkins.getDescriptorByType(FolderBasedAuthorizationStrategy.DescriptorImpl.class);
+        if (descriptor != null) {
+            descriptor.setJobAclCacheSettings(published.getJobAclCacheSettings());
+        }
+        AclCacheWarmUp.warmUpAfterChange(published);
+    }
+}
@@ -0,0 +1,130 @@
+package io.jenkins.plugins.folderauth;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.security.ACL;
+import hudson.security.Permission;
+import hudson.security.SidACL;
+import io.jenkins.plugins.folderauth.acls.FolderAclTrie;
+import io.jenkins.plugins.folderauth.acls.PermissionSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.acegisecurity.acls.sid.Sid;
+import org.kohsuke.stapler.Stapler;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Remembers the permissions granted on items by one version of a {@link FolderBasedAuthorizationStrategy} for
+ * the duration of a single HTTP request.
+ * <p>
+ * Rendering a page checks the same permissions of the same {@link Authentication} on the same items many times.
+ * The first check on an item collects everything granted to the {@link Authentication} there, and the following
+ * checks are a single bit test. The memo is stored as an attribute of the {@link StaplerRequest2}, so it is
+ * discarded with the request. A memo is only used by the version of the strategy that created it; when the
+ * strategy is replaced during the request, the next {@link FolderBasedAuthorizationStrategy#getACL} starts a new
+ * one.
+ */
+@ParametersAreNonnullByDefault
+final class RequestAclMemo {
+    private static final String ATTRIBUTE = RequestAclMemo.class.getName();
+
+    /**
+     * Maximum number of items remembered for one request. Items checked after that are not remembered, so
+     * a request visiting every item of a very large instance does not keep all of them in memory.
+     */
+    private static final int MAX_ITEMS = 4096;
+
+    private final FolderBasedAuthorizationStrategy strategy;
+    private final Map<String, ItemAcl> acls = new ConcurrentHashMap<>();
+
+    private RequestAclMemo(FolderBasedAuthorizationStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Returns the memo of {@code strategy} for the HTTP request being handled by the calling thread.
+     *
+     * @param strategy the strategy whose {@link ACL}s are remembered
+     * @return the memo, or null when the calling thread is not handling an HTTP request
+     */
+    @CheckForNull
+    static RequestAclMemo get(FolderBasedAuthorizationStrategy strategy) {
+        StaplerRequest2 req = Stapler.getCurrentRequest2();
+        if (req == null) {
+            return null;
+        }
+
+        Object memo = req.getAttribute(ATTRIBUTE);
+        if (memo instanceof RequestAclMemo && ((RequestAclMemo) memo).strategy == strategy) {
+            return (RequestAclMemo) memo;
+        }
+        RequestAclMemo created = new RequestAclMemo(strategy);
+        req.setAttribute(ATTRIBUTE, created);
+        return created;
+    }
+
+    /**
+     * Returns an {@link ACL} of the item with the given full name which remembers its decisions.
+     *
+     * @param fullName the full name of the item
+     * @return the {@link ACL} of the item
+     */
+    @NonNull
+    SidACL getAcl(String fullName) {
+        ItemAcl acl = acls.get(fullName);
+        if (acl == null) {
+            acl = new ItemAcl(strategy.getJobAcls(fullName), fullName);
+            if (acls.size() < MAX_ITEMS) {
+                ItemAcl existing = acls.putIfAbsent(fullName, acl);
+                if (existing != null) {
+                    acl = existing;
+                }
+            }
+        }
+        return acl;
+    }
+
+    /**
+     * The {@link ACL} of one item, remembering the permissions granted to each {@link Authentication}.
+     */
+    private static final class ItemAcl extends SidACL {
+        private final FolderAclTrie jobAcls;
+        private final String fullName;
+
+        /**
+         * The permissions granted on the item, by {@link Authentication}. The same {@link Authentication} is
+         * used throughout a request, so comparing identities avoids comparing authorities.
+         */
+        private final Map<Authentication, PermissionSet> permissions =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+        private ItemAcl(FolderAclTrie jobAcls, String fullName) {
+            this.jobAcls = jobAcls;
+            this.fullName = fullName;
+        }
+
+        @Override
+        public boolean hasPermission2(@NonNull Authentication a, @NonNull Permission permission) {
+            if (ACL.SYSTEM2.equals(a)) {
+                return true;
+            }
+            return permissions.computeIfAbsent(a, auth -> jobAcls.getGrantedPermissions(fullName, auth))
+                              .contains(permission);
+        }
+
+        @Override
+        @SuppressFBWarnings(value = "NP_BOOLEAN_RETURN_NULL",
+                justification = "hudson.security.SidACL requires null when unknown")
+        @Nullable
+        protected Boolean hasPermission(Sid sid, Permission permission) {
+            return jobAcls.getGrantedPermissions(fullName, Collections.singletonList(toString(sid)))
+                          .contains(permission) ? true : null;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package io.jenkins.plugins.folderauth;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.security.AuthorizationStrategy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import javax.annotation.ParametersAreNonnullByDefault;
+import jenkins.model.Jenkins;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Lists the items visible to the current user, skipping whole folders under which the user cannot read anything.
+ * <p>
+ * Returns the same items in the same order as {@link Jenkins#getAllItems(Class)}, and can replace it. It uses
+ * {@link FolderBasedAuthorizationStrategy#canReadAnythingBelow(Authentication, String)}, so a user who can see
+ * only a few items out of many folders does not pay for a permission check on every item.
+ */
+@ParametersAreNonnullByDefault
+public final class VisibleItems {
+    /**
+     * The order of {@link hudson.model.Items#getAllItems(ItemGroup, Class)}: by name ignoring case, with a
+     * folder sorted as if its name ended with a slash.
+     */
+    private static final Comparator<Item> BY_NAME = Comparator.comparing(VisibleItems::getSortName,
+        String::compareToIgnoreCase);
+
+    private VisibleItems() {
+    }
+
+    /**
+     * Returns all items of the given type that the current user can read.
+     *
+     * @param type the type of items
+     * @param <T>  the type of items
+     * @return all items of type {@code type} which the current user has {@link Item#READ} on, depth first and
+     *         sorted by name within each folder
+     */
+    @NonNull
+    public static <T extends Item> List<T> getAllItems(Class<T> type) {
+        Jenkins jenkins = Jenkins.get();
+        AuthorizationStrategy strategy = jenkins.getAuthorizationStrategy();
+        if (!(strategy instanceof FolderBasedAuthorizationStrategy)) {
+            return jenkins.getAllItems(type);
+        }
+
+        List<T> items = new ArrayList<>();
+        collect(jenkins, type, Jenkins.getAuthentication2(), (FolderBasedAuthorizationStrategy) strategy, items);
+        return items;
+    }
+
+    private static <T extends Item> void collect(ItemGroup<?> group, Class<T> type, Authentication a,
+                                                 FolderBasedAuthorizationStrategy strategy, List<T> items) {
+        List<Item> children;
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            children = new ArrayList<>(group.getItems());
+        }
+        children.sort(BY_NAME);
+
+        for (Item item : children) {
+            if (!strategy.canReadAnythingBelow(a, item.getFullName())) {
+                continue;
+            }
+            if (type.isInstance(item) && item.hasPermission2(a, Item.READ)) {
+                items.add(type.cast(item));
+            }
+            if (item instanceof ItemGroup) {
+                collect((ItemGroup<?>) item, type, a, strategy, items);
+            }
+        }
+    }
+
+    @NonNull
+    private static String getSortName(Item item) {
+        return item instanceof ItemGroup ? item.getName() + '/' : item.getName();
+    }
+}
@@ -1,71 +1,147 @@
 package io.jenkins.plugins.folderauth.acls;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.security.Permission;
 import hudson.security.SidACL;
-import io.jenkins.plugins.folderauth.misc.PermissionWrapper;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import jenkins.model.Jenkins;
+import java.util.function.Consumer;
 import org.acegisecurity.acls.sid.Sid;
-import org.apache.commons.collections.CollectionUtils;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 
 abstract class AbstractAcl extends SidACL {
 
-    private static ConcurrentHashMap<Permission, Set<Permission>> implyingPermissionsCache = new ConcurrentHashMap<>();
+    /**
+     * The implications between permissions used to build {@link #permissionList}.
+     */
+    final PermissionClosure closure = PermissionClosure.get();
 
-    static {
-        Permission.getAll().forEach(AbstractAcl::cacheImplyingPermissions);
+    /**
+     * Maps each sid to the mask of permissions assigned to it, including all permissions implied by them.
+     * <p>
+     * The implementation should ensure that this list contains accurate permissions for each sid.
+     * Masks are created by {@link PermissionIndex} and are never modified once they have been put here.
+     */
+    protected Map<String, long[]> permissionList = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the permissions in {@code permissions} to the permissions already assigned to {@code sid}.
+     *
+     * @param sid         the sid
+     * @param permissions mask of the permissions to be assigned, as returned by {@link PermissionClosure#expand}
+     */
+    protected void grant(String sid, long[] permissions) {
+        permissionList.merge(sid, permissions, PermissionIndex::or);
     }
 
-    private static Set<Permission> cacheImplyingPermissions(Permission permission) {
-        Set<Permission> implyingPermissions;
+    /**
+     * Adds all permissions assigned by {@code acl} to the permissions assigned by this ACL.
+     *
+     * @param acl the ACL whose permissions will be copied
+     */
+    void grantAll(AbstractAcl acl) {
+        acl.permissionList.forEach(this::grant);
+    }
 
-        if (PermissionWrapper.DANGEROUS_PERMISSIONS.contains(permission)) {
-            // dangerous permissions should be deferred to Jenkins.ADMINISTER
-            implyingPermissions = getImplyingPermissions(Jenkins.ADMINISTER);
-        } else {
-            implyingPermissions = new HashSet<>();
+    /**
+     * Checks whether {@code acl} assigns exactly the same permissions to the same sids as this ACL.
+     *
+     * @param acl the ACL to compare with
+     * @return true if both ACLs assign the same permissions
+     */
+    boolean hasSamePermissions(@CheckForNull AbstractAcl acl) {
+        if (acl == null || acl.closure != closure || acl.permissionList.size() != permissionList.size()) {
+            return false;
+        }
 
-            for (Permission p = permission; p != null; p = p.impliedBy) {
-                implyingPermissions.add(p);
+        for (Map.Entry<String, long[]> entry : permissionList.entrySet()) {
+            long[] permissions = acl.permissionList.get(entry.getKey());
+            if (permissions == null || !PermissionIndex.equals(permissions, entry.getValue())) {
+                return false;
             }
         }
+        return true;
+    }
 
-        implyingPermissionsCache.put(permission, implyingPermissions);
-        return implyingPermissions;
+    /**
+     * Returns a hash code of the permissions assigned by this ACL, consistent with
+     * {@link #hasSamePermissions(AbstractAcl)}.
+     *
+     * @return the hash code of the permissions assigned by this ACL
+     */
+    int permissionsHashCode() {
+        int hash = 0;
+        for (Map.Entry<String, long[]> entry : permissionList.entrySet()) {
+            hash += entry.getKey().hashCode() ^ PermissionIndex.hashCode(entry.getValue());
+        }
+        return hash;
     }
 
-    private static Set<Permission> getImplyingPermissions(Permission p) {
-        Set<Permission> permissions = implyingPermissionsCache.get(p);
-        if (permissions != null) {
-            return permissions;
-        } else {
-            return cacheImplyingPermissions(p);
+    /**
+     * Returns the sids that {@link SidACL} checks for an {@link Authentication}, in the form used as keys
+     * of {@link #permissionList}.
+     *
+     * @param a the authentication
+     * @return the sids of the principal, its authorities and the sids applicable to everyone
+     */
+    @NonNull
+    List<String> getSids(Authentication a) {
+        List<String> sids = new ArrayList<>();
+        sids.add(a.getName());
+        for (GrantedAuthority authority : a.getAuthorities()) {
+            sids.add(authority.getAuthority());
         }
+        // permissions granted to 'everyone' and 'anonymous' users are granted to everyone
+        sids.add(toString(EVERYONE));
+        sids.add(toString(ANONYMOUS));
+        return sids;
     }
 
     /**
-     * Maps each sid to the set of permissions assigned to it.
-     * <p>
-     * The implementation should ensure that this list contains accurate permissions for each sid.
+     * Returns the mask of all permissions assigned to any of the {@code sids}.
+     *
+     * @param sids the sids
+     * @return mask of the permissions assigned to the sids
+     */
+    @NonNull
+    long[] getPermissions(List<String> sids) {
+        long[] mask = PermissionIndex.EMPTY_MASK;
+        for (String sid : sids) {
+            long[] permissions = permissionList.get(sid);
+            if (permissions != null) {
+                mask = PermissionIndex.or(mask, permissions);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Runs {@code action} for every sid which has been assigned {@code permission}.
+     *
+     * @param permission the permission
+     * @param action     the action to be run for each sid
      */
-    protected Map<String, Set<Permission>> permissionList = new ConcurrentHashMap<>();
+    void forEachSidWith(Permission permission, Consumer<String> action) {
+        permissionList.forEach((sid, permissions) -> {
+            if (closure.implies(permissions, permission)) {
+                action.accept(sid);
+            }
+        });
+    }
 
     @Override
     @SuppressFBWarnings(value = "NP_BOOLEAN_RETURN_NULL",
             justification = "hudson.security.SidACL requires null when unknown")
     @Nullable
     protected Boolean hasPermission(Sid sid, Permission permission) {
-        if (PermissionWrapper.DANGEROUS_PERMISSIONS.contains(permission)) {
-            permission = Jenkins.ADMINISTER;
-        }
-
-        Set<Permission> permissions = permissionList.get(toString(sid));
-        if (permissions != null && CollectionUtils.containsAny(permissions, getImplyingPermissions(permission))) {
+        long[] permissions = permissionList.get(toString(sid));
+        if (permissions != null && closure.implies(permissions, permission)) {
             return true;
         }
 
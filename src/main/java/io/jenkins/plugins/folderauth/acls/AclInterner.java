@@ -0,0 +1,54 @@
+package io.jenkins.plugins.folderauth.acls;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Makes {@link GenericAclImpl}s which assign exactly the same permissions to the same sids share one instance.
+ * <p>
+ * A role applicable on thousands of folders otherwise creates one table per folder with identical content.
+ * ACLs passed to {@link #intern(GenericAclImpl)} must not be modified afterwards.
+ */
+@ParametersAreNonnullByDefault
+@Restricted(NoExternalUse.class)
+public final class AclInterner {
+    private final Map<Key, GenericAclImpl> acls = new HashMap<>();
+
+    /**
+     * Returns the first ACL interned by this object which assigns the same permissions as {@code acl}.
+     *
+     * @param acl the ACL
+     * @return {@code acl} or a previously interned ACL with the same permissions
+     */
+    @NonNull
+    public GenericAclImpl intern(GenericAclImpl acl) {
+        return acls.computeIfAbsent(new Key(acl), key -> acl);
+    }
+
+    private static final class Key {
+        private final GenericAclImpl acl;
+        private final int hash;
+
+        private Key(GenericAclImpl acl) {
+            this.acl = acl;
+            this.hash = acl.permissionsHashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return hash == key.hash && acl.hasSamePermissions(key.acl);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
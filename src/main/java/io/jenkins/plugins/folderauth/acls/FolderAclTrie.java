@@ -0,0 +1,616 @@
+package io.jenkins.plugins.folderauth.acls;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.model.Item;
+import hudson.security.ACL;
+import hudson.security.Permission;
+import hudson.security.SidACL;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.acegisecurity.acls.sid.Sid;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Indexes the {@link GenericAclImpl}s of folders by the components of their full names.
+ * <p>
+ * Every node keeps the {@link SidACL} inherited from its ancestors, so finding the {@link SidACL}
+ * applicable to an item is a single descent along its full name which does not allocate.
+ * <p>
+ * The trie must not be modified after {@link #inherit(SidACL)} or {@link #flatten(GlobalAclImpl, FolderAclTrie)}
+ * has been called.
+ */
+@ParametersAreNonnullByDefault
+@Restricted(NoExternalUse.class)
+public final class FolderAclTrie {
+    private static final char SEPARATOR = '/';
+
+    private final Node root = new Node(null, "", 0, -1);
+
+    /**
+     * Whether the inherited {@link SidACL}s were computed by {@link #flatten(GlobalAclImpl, FolderAclTrie)}.
+     */
+    private boolean flattened;
+
+    /**
+     * Dense ordinals of the sids which have been assigned {@link Item#READ} on any folder, used by
+     * {@link Node#readers}.
+     */
+    private final Map<String, Integer> readerOrdinals = new HashMap<>();
+
+    /**
+     * Created when {@link #getProfiledAcl(String)} is first used.
+     */
+    @CheckForNull
+    private volatile PermissionProfiles profiles;
+
+    /**
+     * Returns the {@link GenericAclImpl} of the folder with the given full name, creating it if needed.
+     *
+     * @param fullName the full name of the folder
+     * @return the {@link GenericAclImpl} containing the permissions assigned on the folder
+     */
+    @NonNull
+    public GenericAclImpl getOrCreateAcl(String fullName) {
+        Node node = root;
+        int start = 0;
+        while (true) {
+            int end = fullName.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = fullName.length();
+            }
+
+            int hash = hash(fullName, start, end);
+            Node child = node.getChild(fullName, start, end, hash);
+            if (child == null) {
+                child = node.addChild(fullName.substring(start, end), hash);
+            }
+            node = child;
+
+            if (end == fullName.length()) {
+                break;
+            }
+            start = end + 1;
+        }
+
+        if (node.acl == null) {
+            node.acl = new GenericAclImpl();
+        }
+        return node.acl;
+    }
+
+    /**
+     * Computes the {@link SidACL} inherited by every folder in this trie.
+     * <p>
+     * Folders whose roles assign the same permissions share one {@link GenericAclImpl}, and folders which also
+     * inherit the same {@link SidACL} share the resulting {@link SidACL}.
+     *
+     * @param rootAcl the {@link SidACL} inherited by all folders
+     */
+    public void inherit(SidACL rootAcl) {
+        inherit(root, rootAcl, new AclInterner(), new HashMap<>());
+        summarize(root);
+    }
+
+    /**
+     * Computes the {@link SidACL} inherited by every folder in this trie as a single table which merges the
+     * permissions from {@code rootAcl}, the roles on its ancestors and its own roles. Permission checks then
+     * cost the same for every depth.
+     * <p>
+     * The merged tables of {@code previous} are reused for every folder whose own roles and whose ancestors'
+     * roles assign the same permissions, so only the subtrees under changed folders are merged again. Folders
+     * with the same merged permissions share one table.
+     *
+     * @param rootAcl  the {@link SidACL} inherited by all folders
+     * @param previous the trie of the previous version of the configuration, if any
+     */
+    public void flatten(GlobalAclImpl rootAcl, @CheckForNull FolderAclTrie previous) {
+        flattened = true;
+        root.inheritedAcl = rootAcl;
+
+        Node previousRoot = null;
+        if (previous != null && previous.flattened
+                && rootAcl.hasSamePermissions((AbstractAcl) previous.root.inheritedAcl)) {
+            previousRoot = previous.root;
+        }
+
+        AclInterner interner = new AclInterner();
+        for (Node child : root.children) {
+            if (child != null) {
+                flatten(child, rootAcl, getChild(previousRoot, child), interner);
+            }
+        }
+        summarize(root);
+    }
+
+    /**
+     * Computes {@link Node#readers} for {@code node} and all nodes below it.
+     */
+    @NonNull
+    private BitSet summarize(Node node) {
+        BitSet readers = new BitSet();
+        if (node.acl != null) {
+            node.acl.forEachSidWith(Item.READ,
+                sid -> readers.set(readerOrdinals.computeIfAbsent(sid, k -> readerOrdinals.size())));
+        }
+        for (Node child : node.children) {
+            if (child != null) {
+                readers.or(summarize(child));
+            }
+        }
+        node.readers = readers.isEmpty() ? null : readers;
+        return readers;
+    }
+
+    /**
+     * @param previous the node with the same full name in the previous trie, when it inherited the same
+     *                 permissions as {@code node}
+     */
+    private static void flatten(Node node, AbstractAcl inheritedAcl, @CheckForNull Node previous,
+                                AclInterner interner) {
+        if (node.acl != null) {
+            node.acl = interner.intern(node.acl);
+        }
+        if (previous != null && (node.acl == null ? previous.acl != null : !node.acl.hasSamePermissions(previous.acl))) {
+            previous = null;
+        }
+
+        AbstractAcl acl;
+        if (previous != null) {
+            acl = (AbstractAcl) previous.inheritedAcl;
+        } else if (node.acl == null) {
+            acl = inheritedAcl;
+        } else {
+            GenericAclImpl merged = new GenericAclImpl();
+            merged.grantAll(inheritedAcl);
+            merged.grantAll(node.acl);
+            acl = interner.intern(merged);
+        }
+
+        node.inheritedAcl = acl;
+        for (Node child : node.children) {
+            if (child != null) {
+                flatten(child, acl, getChild(previous, child), interner);
+            }
+        }
+    }
+
+    @CheckForNull
+    private static Node getChild(@CheckForNull Node parent, Node child) {
+        return parent == null ? null : parent.getChild(child.segment, 0, child.segment.length(), child.hash);
+    }
+
+    /**
+     * @param chains the {@link SidACL}s created so far by their parent {@link SidACL} and {@link GenericAclImpl}
+     */
+    private static void inherit(Node node, SidACL inheritedAcl, AclInterner interner,
+                                Map<Map.Entry<SidACL, GenericAclImpl>, SidACL> chains) {
+        if (node.acl != null) {
+            GenericAclImpl acl = interner.intern(node.acl);
+            SidACL parentAcl = inheritedAcl;
+            node.acl = acl;
+            inheritedAcl = chains.computeIfAbsent(new AbstractMap.SimpleImmutableEntry<>(parentAcl, acl),
+                key -> parentAcl.newInheritingACL(acl));
+        }
+        node.inheritedAcl = inheritedAcl;
+        for (Node child : node.children) {
+            if (child != null) {
+                inherit(child, inheritedAcl, interner, chains);
+            }
+        }
+    }
+
+    /**
+     * Finds the {@link SidACL} applicable to the item with the given full name.
+     * <p>
+     * Roles on a folder are applicable to all of its children.
+     *
+     * @param fullName the full name of the item
+     * @return the {@link SidACL} formed by the roles on the item and all of its ancestors
+     */
+    @NonNull
+    public SidACL getInheritedAcl(String fullName) {
+        return findDeepest(fullName).inheritedAcl;
+    }
+
+    /**
+     * Finds the deepest folder on the path to the item with the given full name which has been assigned any
+     * permission. All items below that folder without roles of their own get the same {@link SidACL}.
+     *
+     * @param fullName the full name of the item
+     * @return the full name of the folder, which may be {@code fullName} itself, or an empty string when no
+     *         folder on the path has been assigned any permission
+     */
+    @NonNull
+    public String getNearestRuledFolder(String fullName) {
+        Node node = root;
+        int ruledEnd = 0;
+        int start = 0;
+        int length = fullName.length();
+        while (start <= length) {
+            int end = fullName.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = length;
+            }
+
+            node = node.getChild(fullName, start, end, hash(fullName, start, end));
+            if (node == null) {
+                break;
+            }
+            if (node.acl != null) {
+                ruledEnd = end;
+            }
+            start = end + 1;
+        }
+        return ruledEnd == length ? fullName : fullName.substring(0, ruledEnd);
+    }
+
+    /**
+     * Returns all permissions granted to an {@link Authentication} on the item with the given full name,
+     * visiting each {@link ACL} applicable to the item only once.
+     *
+     * @param fullName the full name of the item
+     * @param a        the authentication
+     * @return the permissions granted to any of the sids of {@code a}, including implied permissions
+     */
+    @NonNull
+    public PermissionSet getGrantedPermissions(String fullName, Authentication a) {
+        return getGrantedPermissions(fullName, ((AbstractAcl) root.inheritedAcl).getSids(a));
+    }
+
+    /**
+     * Returns all permissions granted to any of the given sids on the item with the given full name.
+     *
+     * @param fullName the full name of the item
+     * @param sids     the sids, as used by {@link SidACL}
+     * @return the permissions granted to any of the sids, including implied permissions
+     */
+    @NonNull
+    public PermissionSet getGrantedPermissions(String fullName, List<String> sids) {
+        AbstractAcl rootAcl = (AbstractAcl) root.inheritedAcl;
+        long[] mask;
+
+        if (flattened) {
+            mask = ((AbstractAcl) findDeepest(fullName).inheritedAcl).getPermissions(sids);
+        } else {
+            mask = rootAcl.getPermissions(sids);
+            Node node = root;
+            int start = 0;
+            int length = fullName.length();
+            while (start <= length) {
+                int end = fullName.indexOf(SEPARATOR, start);
+                if (end < 0) {
+                    end = length;
+                }
+
+                node = node.getChild(fullName, start, end, hash(fullName, start, end));
+                if (node == null) {
+                    break;
+                }
+                if (node.acl != null) {
+                    mask = PermissionIndex.or(mask, node.acl.getPermissions(sids));
+                }
+                start = end + 1;
+            }
+        }
+
+        return new PermissionSet(mask, rootAcl.closure);
+    }
+
+    /**
+     * Checks whether an {@link Authentication} can read the item with the given full name or any item below it.
+     * <p>
+     * Subtrees without a folder role granting {@link Item#READ} to one of the sids of {@code a} are rejected
+     * with a few bit tests, without checking any of the items inside them.
+     *
+     * @param fullName the full name of the item
+     * @param a        the authentication
+     * @return false if {@code a} cannot read the item or anything below it
+     */
+    public boolean canReadAnythingBelow(String fullName, Authentication a) {
+        Node deepest = findDeepest(fullName);
+        if (deepest.inheritedAcl.hasPermission2(a, Item.READ)) {
+            return true;
+        }
+
+        Node node = findExact(fullName);
+        if (node == null || node.readers == null) {
+            return false;
+        }
+
+        for (String sid : ((AbstractAcl) root.inheritedAcl).getSids(a)) {
+            Integer ordinal = readerOrdinals.get(sid);
+            if (ordinal != null && node.readers.get(ordinal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the {@link SidACL} applicable to the item with the given full name, which checks permissions with the
+     * {@link PermissionProfiles.Profile} of the {@link Authentication}.
+     * <p>
+     * It grants the same permissions as {@link #getInheritedAcl(String)}, but a check looks up each folder on
+     * the path to the item once instead of once for every sid of the {@link Authentication}.
+     *
+     * @param fullName the full name of the item
+     * @return the {@link SidACL} formed by the roles on the item and all of its ancestors
+     */
+    @NonNull
+    public SidACL getProfiledAcl(String fullName) {
+        Node node = findDeepest(fullName);
+        ProfiledAcl acl = node.profiledAcl;
+        if (acl == null) {
+            acl = new ProfiledAcl(node);
+            node.profiledAcl = acl;
+        }
+        return acl;
+    }
+
+    @NonNull
+    private PermissionProfiles getProfiles() {
+        PermissionProfiles result = profiles;
+        if (result == null) {
+            synchronized (this) {
+                result = profiles;
+                if (result == null) {
+                    Map<String, List<GenericAclImpl>> aclsBySid = new HashMap<>();
+                    indexBySid(root, aclsBySid, Collections.newSetFromMap(new IdentityHashMap<>()));
+                    result = new PermissionProfiles(getRootAcl(), aclsBySid);
+                    profiles = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the distinct {@link GenericAclImpl}s of {@code node} and all nodes below it to {@code aclsBySid}.
+     */
+    private static void indexBySid(Node node, Map<String, List<GenericAclImpl>> aclsBySid,
+                                   Set<GenericAclImpl> visited) {
+        GenericAclImpl acl = node.acl;
+        if (acl != null && visited.add(acl)) {
+            for (String sid : acl.permissionList.keySet()) {
+                aclsBySid.computeIfAbsent(sid, k -> new ArrayList<>()).add(acl);
+            }
+        }
+        for (Node child : node.children) {
+            if (child != null) {
+                indexBySid(child, aclsBySid, visited);
+            }
+        }
+    }
+
+    /**
+     * The {@link AbstractAcl} inherited by all folders.
+     */
+    @NonNull
+    private AbstractAcl getRootAcl() {
+        return (AbstractAcl) root.inheritedAcl;
+    }
+
+    /**
+     * Finds the node for exactly the given full name.
+     */
+    @CheckForNull
+    private Node findExact(String fullName) {
+        Node node = findDeepest(fullName);
+        return node.fullNameLength == fullName.length() ? node : null;
+    }
+
+    /**
+     * Finds the deepest node on the path to the item with the given full name.
+     */
+    @NonNull
+    private Node findDeepest(String fullName) {
+        Node node = root;
+        int start = 0;
+        int length = fullName.length();
+        while (start <= length) {
+            int end = fullName.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = length;
+            }
+
+            Node child = node.getChild(fullName, start, end, hash(fullName, start, end));
+            if (child == null) {
+                break;
+            }
+            node = child;
+            start = end + 1;
+        }
+        return node;
+    }
+
+    /**
+     * Same as {@link String#hashCode()} of {@code path.substring(start, end)}, spread like {@link java.util.HashMap}.
+     */
+    private static int hash(String path, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + path.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * The {@link SidACL} of a node which checks permissions with {@link PermissionProfiles}.
+     */
+    private final class ProfiledAcl extends SidACL {
+        private final Node node;
+
+        /**
+         * Ordinals of the sids to which any folder on the path to {@link #node} grants anything. Profiles with
+         * none of these sids only need the root {@link AbstractAcl} to be checked.
+         */
+        private final BitSet pathSids;
+
+        private ProfiledAcl(Node node) {
+            this.node = node;
+            Set<String> sids = new HashSet<>();
+            for (Node n = node; n != null; n = n.parent) {
+                if (n.acl != null) {
+                    sids.addAll(n.acl.permissionList.keySet());
+                }
+            }
+            this.pathSids = getProfiles().getOrdinals(sids);
+        }
+
+        @Override
+        public boolean hasPermission2(@NonNull Authentication a, @NonNull Permission permission) {
+            if (ACL.SYSTEM2.equals(a)) {
+                return true;
+            }
+
+            PermissionClosure closure = getRootAcl().closure;
+            PermissionProfiles.Profile profile = getProfiles().get(a);
+            if (closure.implies(profile.getRootMask(), permission)) {
+                return true;
+            }
+            if (!profile.hasFolderGrants() || !profile.isGrantedAnythingBy(pathSids)) {
+                NegativeDecisionStatistics.recordHit();
+                return false;
+            }
+            NegativeDecisionStatistics.recordMiss();
+
+            for (Node n = node; n != null; n = n.parent) {
+                if (n.acl != null) {
+                    long[] mask = profile.getMask(n.acl);
+                    if (mask != null && closure.implies(mask, permission)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        @SuppressFBWarnings(value = "NP_BOOLEAN_RETURN_NULL",
+                justification = "hudson.security.SidACL requires null when unknown")
+        @Nullable
+        protected Boolean hasPermission(Sid sid, Permission permission) {
+            List<String> sids = Collections.singletonList(toString(sid));
+            AbstractAcl rootAcl = getRootAcl();
+            if (rootAcl.closure.implies(rootAcl.getPermissions(sids), permission)) {
+                return true;
+            }
+            for (Node n = node; n != null; n = n.parent) {
+                if (n.acl != null && rootAcl.closure.implies(n.acl.getPermissions(sids), permission)) {
+                    return true;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        @CheckForNull
+        private final Node parent;
+        private final String segment;
+        private final int hash;
+
+        /**
+         * Length of the full name of this node. The full name of the root is not a prefix of any full name.
+         */
+        private final int fullNameLength;
+
+        /**
+         * Open addressing hash table of children with linear probing. At most half full.
+         */
+        private Node[] children = NO_CHILDREN;
+        private int childCount;
+
+        /**
+         * Permissions assigned through roles on exactly this folder.
+         */
+        @CheckForNull
+        private GenericAclImpl acl;
+
+        private SidACL inheritedAcl;
+
+        /**
+         * Ordinals of the sids that have been assigned {@link Item#READ} on this folder or any folder below it,
+         * or null if there are none.
+         */
+        @CheckForNull
+        private BitSet readers;
+
+        /**
+         * Created when {@link #getProfiledAcl(String)} is first called for this node. Creating it twice is harmless.
+         */
+        @CheckForNull
+        private ProfiledAcl profiledAcl;
+
+        private Node(@CheckForNull Node parent, String segment, int hash, int fullNameLength) {
+            this.parent = parent;
+            this.segment = segment;
+            this.hash = hash;
+            this.fullNameLength = fullNameLength;
+        }
+
+        @CheckForNull
+        private Node getChild(String path, int start, int end, int hash) {
+            Node[] table = children;
+            if (table.length == 0) {
+                return null;
+            }
+
+            int mask = table.length - 1;
+            int length = end - start;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                Node child = table[i];
+                if (child == null) {
+                    return null;
+                }
+                if (child.hash == hash && child.segment.length() == length
+                        && path.regionMatches(start, child.segment, 0, length)) {
+                    return child;
+                }
+            }
+        }
+
+        @NonNull
+        private Node addChild(String segment, int hash) {
+            if ((childCount + 1) * 2 > children.length) {
+                Node[] old = children;
+                children = new Node[Math.max(4, old.length * 2)];
+                for (Node child : old) {
+                    if (child != null) {
+                        put(child);
+                    }
+                }
+            }
+
+            Node child = new Node(this, segment, hash, fullNameLength + 1 + segment.length());
+            put(child);
+            childCount++;
+            return child;
+        }
+
+        private void put(Node child) {
+            int mask = children.length - 1;
+            int i = child.hash & mask;
+            while (children[i] != null) {
+                i = (i + 1) & mask;
+            }
+            children[i] = child;
+        }
+    }
+}
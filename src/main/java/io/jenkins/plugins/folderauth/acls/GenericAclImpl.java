@@ -2,7 +2,6 @@ package io.jenkins.plugins.folderauth.acls;
 
 import hudson.security.Permission;
 
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -18,13 +17,19 @@ public class GenericAclImpl extends AbstractAcl {
      * @param permissions the {@link Permission}s to be assigned
      */
     public void assignPermissions(Set<String> sids, Set<Permission> permissions) {
-        sids.parallelStream().forEach(sid -> {
-            Set<Permission> assignedPermissions = permissionList.get(sid);
-            if (assignedPermissions == null) {
-                assignedPermissions = new HashSet<>();
-            }
-            assignedPermissions.addAll(permissions);
-            permissionList.put(sid, assignedPermissions);
-        });
+        long[] mask = closure.expand(permissions);
+        for (String sid : sids) {
+            grant(sid, mask);
+        }
+    }
+
+    /**
+     * Assigns all permissions assigned by {@code acl} to the same sids in this ACL, so that this ACL does not
+     * need to inherit from {@code acl}.
+     *
+     * @param acl the ACL whose permissions will be assigned
+     */
+    public void inheritPermissions(GlobalAclImpl acl) {
+        grantAll(acl);
     }
 }
@@ -1,12 +1,10 @@
 package io.jenkins.plugins.folderauth.acls;
 
-import hudson.security.Permission;
 import io.jenkins.plugins.folderauth.misc.PermissionWrapper;
 import io.jenkins.plugins.folderauth.roles.GlobalRole;
 
-import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * An immutable ACL object. Dispose off when no longer valid.
@@ -22,18 +20,25 @@ public class GlobalAclImpl extends AbstractAcl {
      */
     public GlobalAclImpl(Set<GlobalRole> globalRoles) {
         for (GlobalRole role : globalRoles) {
-            Set<Permission> impliedPermissions = ConcurrentHashMap.newKeySet();
+            long[] mask = closure.expand(role.getPermissionsUnsorted().stream()
+                                              .map(PermissionWrapper::getPermission)
+                                              .collect(Collectors.toList()));
 
-            role.getPermissionsUnsorted().parallelStream().map(PermissionWrapper::getPermission).forEach(impliedPermissions::add);
-
-            role.getSids().parallelStream().forEach(sid -> {
-                Set<Permission> permissionsForSid = permissionList.get(sid);
-                if (permissionsForSid == null) {
-                    permissionsForSid = new HashSet<>();
-                }
-                permissionsForSid.addAll(impliedPermissions);
-                permissionList.put(sid, permissionsForSid);
-            });
+            for (String sid : role.getSids()) {
+                grant(sid, mask);
+            }
         }
     }
+
+    /**
+     * Checks whether this ACL covers the implications of all permissions registered right now.
+     * <p>
+     * ACLs copying the permissions of this ACL must be built with the same implications, or a permission
+     * registered in between would be missing from the copied permissions.
+     *
+     * @return false if a permission has been registered since this ACL was created
+     */
+    public boolean isUpToDate() {
+        return closure == PermissionClosure.get();
+    }
 }
@@ -0,0 +1,57 @@
+package io.jenkins.plugins.folderauth.acls;
+
+import java.util.concurrent.atomic.LongAdder;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Counts how often a permission check with {@link PermissionProfiles} was denied without walking the folders
+ * on the path to the item.
+ * <p>
+ * The counters are shared by all versions of the strategy and are only reset by {@link #reset()}.
+ */
+@Restricted(NoExternalUse.class)
+public final class NegativeDecisionStatistics {
+    private static final LongAdder lookups = new LongAdder();
+    private static final LongAdder hits = new LongAdder();
+
+    private NegativeDecisionStatistics() {
+    }
+
+    static void recordHit() {
+        lookups.increment();
+        hits.increment();
+    }
+
+    static void recordMiss() {
+        lookups.increment();
+    }
+
+    /**
+     * @return the number of checks not granted by the root {@link hudson.security.ACL}, which checked whether any
+     *         folder on the path to the item grants anything to the sids of the user
+     */
+    public static long getLookupCount() {
+        return lookups.sum();
+    }
+
+    /**
+     * @return the number of checks which were denied because no folder on the path grants anything
+     */
+    public static long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the ratio of {@link #getHitCount()} to {@link #getLookupCount()}, or 0 if nothing was looked up
+     */
+    public static double getHitRate() {
+        long lookupCount = lookups.sum();
+        return lookupCount == 0 ? 0 : (double) hits.sum() / lookupCount;
+    }
+
+    public static void reset() {
+        lookups.reset();
+        hits.reset();
+    }
+}
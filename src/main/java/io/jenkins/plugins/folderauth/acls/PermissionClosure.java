@@ -0,0 +1,136 @@
+package io.jenkins.plugins.folderauth.acls;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.security.Permission;
+import io.jenkins.plugins.folderauth.misc.PermissionWrapper;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jenkins.model.Jenkins;
+
+/**
+ * A snapshot of the implications between all {@link Permission}s registered at the time it was created.
+ * <p>
+ * Used to expand the permissions granted to a sid into everything they imply when an ACL is built, so that
+ * checking a permission is a single bit test. Dangerous permissions are only implied by {@link Jenkins#ADMINISTER}.
+ * Permissions registered after the snapshot was taken are resolved by walking {@link Permission#impliedBy}.
+ */
+final class PermissionClosure {
+    private static volatile PermissionClosure current;
+
+    /**
+     * Number of permissions that were registered when this snapshot was taken.
+     */
+    private final int size;
+
+    /**
+     * Mask of the permissions covered by this snapshot.
+     */
+    private final long[] covered;
+
+    /**
+     * Maps each permission to the mask of all permissions it implies, including itself.
+     */
+    private final Map<Permission, long[]> implied;
+
+    private PermissionClosure(List<Permission> all) {
+        Map<Permission, List<Permission>> impliedPermissions = new HashMap<>();
+
+        for (Permission permission : all) {
+            impliedPermissions.computeIfAbsent(permission, p -> new ArrayList<>());
+            for (Permission p = getFirstImplying(permission); p != null; p = p.impliedBy) {
+                impliedPermissions.computeIfAbsent(p, k -> new ArrayList<>()).add(permission);
+            }
+        }
+
+        implied = new HashMap<>();
+        impliedPermissions.forEach((permission, permissions) -> implied.put(permission,
+            PermissionIndex.maskOf(permissions)));
+
+        covered = PermissionIndex.maskOf(all);
+        size = all.size();
+    }
+
+    /**
+     * Returns a snapshot which covers all permissions registered right now.
+     *
+     * @return a snapshot of the implications between permissions
+     */
+    @NonNull
+    static PermissionClosure get() {
+        List<Permission> all = Permission.getAll();
+        PermissionClosure closure = current;
+        if (closure == null || closure.size != all.size()) {
+            // ACLs built at the same time should use the same snapshot, so that they can be compared
+            synchronized (PermissionClosure.class) {
+                closure = current;
+                if (closure == null || closure.size != all.size()) {
+                    closure = new PermissionClosure(all);
+                    current = closure;
+                }
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * Dangerous permissions should be deferred to {@link Jenkins#ADMINISTER}.
+     */
+    @NonNull
+    private static Permission getFirstImplying(Permission permission) {
+        return PermissionWrapper.DANGEROUS_PERMISSIONS.contains(permission) ? Jenkins.ADMINISTER : permission;
+    }
+
+    /**
+     * Creates a mask of everything implied by the given permissions.
+     *
+     * @param permissions the granted permissions
+     * @return a new mask containing the given permissions and all permissions implied by them
+     */
+    @NonNull
+    long[] expand(Collection<Permission> permissions) {
+        long[] mask = PermissionIndex.EMPTY_MASK;
+        for (Permission permission : permissions) {
+            long[] impliedMask = implied.get(permission);
+            if (impliedMask == null) {
+                // not yet registered when this snapshot was taken
+                impliedMask = PermissionIndex.maskOf(List.of(permission));
+            }
+            mask = PermissionIndex.or(mask, impliedMask);
+        }
+        return mask;
+    }
+
+    /**
+     * Checks whether {@code permission} was registered when this snapshot was taken.
+     *
+     * @param permission the permission
+     * @return true if masks created by this snapshot contain the permission whenever it is implied
+     */
+    boolean covers(Permission permission) {
+        return PermissionIndex.contains(covered, PermissionIndex.ordinal(permission));
+    }
+
+    /**
+     * Checks whether a mask created by {@link #expand(Collection)} implies {@code permission}.
+     *
+     * @param mask       a mask created by this snapshot
+     * @param permission the permission to be checked
+     * @return true if {@code permission} is implied by the mask
+     */
+    boolean implies(long[] mask, Permission permission) {
+        int ordinal = PermissionIndex.ordinal(permission);
+        if (PermissionIndex.contains(covered, ordinal)) {
+            return PermissionIndex.contains(mask, ordinal);
+        }
+
+        for (Permission p = getFirstImplying(permission); p != null; p = p.impliedBy) {
+            if (PermissionIndex.contains(mask, PermissionIndex.ordinal(p))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,102 @@
+package io.jenkins.plugins.folderauth.acls;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.security.Permission;
+import io.jenkins.plugins.folderauth.misc.PermissionGrant;
+import io.jenkins.plugins.folderauth.misc.PermissionWrapper;
+import io.jenkins.plugins.folderauth.roles.AbstractRole;
+import io.jenkins.plugins.folderauth.roles.AgentRole;
+import io.jenkins.plugins.folderauth.roles.FolderRole;
+import io.jenkins.plugins.folderauth.roles.GlobalRole;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Maps every {@link Permission} to the roles which grant it, directly or through an implying permission.
+ * <p>
+ * Only roles are stored, so the size of the index does not depend on the number of sids, folders or agents
+ * of the roles. They are expanded into {@link PermissionGrant}s when the index is read.
+ */
+@ParametersAreNonnullByDefault
+@Restricted(NoExternalUse.class)
+public final class PermissionGrantIndex {
+    private final PermissionClosure closure = PermissionClosure.get();
+
+    /**
+     * The roles granting each permission covered by {@link #closure}.
+     */
+    private final Map<Permission, List<AbstractRole>> roles = new HashMap<>();
+
+    /**
+     * All roles with the masks of the permissions they grant, for permissions not covered by {@link #closure}.
+     */
+    private final Map<AbstractRole, long[]> masks = new HashMap<>();
+
+    public PermissionGrantIndex(Set<GlobalRole> globalRoles, Set<FolderRole> folderRoles, Set<AgentRole> agentRoles) {
+        globalRoles.forEach(this::add);
+        folderRoles.forEach(this::add);
+        agentRoles.forEach(this::add);
+    }
+
+    private void add(AbstractRole role) {
+        long[] mask = closure.expand(role.getPermissionsUnsorted().stream().map(PermissionWrapper::getPermission)
+                                         .collect(Collectors.toSet()));
+        masks.put(role, mask);
+        for (Permission permission : PermissionIndex.permissionsOf(mask)) {
+            roles.computeIfAbsent(permission, p -> new ArrayList<>()).add(role);
+        }
+    }
+
+    /**
+     * Returns who holds {@code permission} and where.
+     *
+     * @param permission the permission
+     * @return one {@link PermissionGrant} for every sid of every folder or agent of every role granting the permission
+     */
+    @NonNull
+    public List<PermissionGrant> getGrants(Permission permission) {
+        List<AbstractRole> granting = closure.covers(permission) ?
+                                          roles.getOrDefault(permission, Collections.emptyList()) :
+                                          getGrantingRoles(permission);
+
+        List<PermissionGrant> grants = new ArrayList<>();
+        for (AbstractRole role : granting) {
+            for (String sid : role.getSids()) {
+                if (role instanceof FolderRole) {
+                    for (String folder : ((FolderRole) role).getFolderNames()) {
+                        grants.add(new PermissionGrant(sid, PermissionGrant.Scope.FOLDER, folder, role.getName()));
+                    }
+                } else if (role instanceof AgentRole) {
+                    for (String agent : ((AgentRole) role).getAgents()) {
+                        grants.add(new PermissionGrant(sid, PermissionGrant.Scope.AGENT, agent, role.getName()));
+                    }
+                } else {
+                    grants.add(new PermissionGrant(sid, PermissionGrant.Scope.GLOBAL, null, role.getName()));
+                }
+            }
+        }
+        return grants;
+    }
+
+    /**
+     * Finds the roles granting a permission registered after {@link #closure} was taken.
+     */
+    @NonNull
+    private List<AbstractRole> getGrantingRoles(Permission permission) {
+        List<AbstractRole> granting = new ArrayList<>();
+        masks.forEach((role, mask) -> {
+            if (closure.implies(mask, permission)) {
+                granting.add(role);
+            }
+        });
+        return granting;
+    }
+}
@@ -0,0 +1,165 @@
+package io.jenkins.plugins.folderauth.acls;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.security.Permission;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns a dense ordinal to every {@link Permission} so that a set of permissions can be stored
+ * as a bitmask ({@code long[]}) instead of a {@link java.util.Set}.
+ * <p>
+ * Ordinals are handed out on first use and are never reused, so a mask built at any time stays valid
+ * when more permissions are registered later. Masks may have different lengths; missing words are zero.
+ * Masks returned by this class must not be modified.
+ */
+final class PermissionIndex {
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    static final long[] EMPTY_MASK = new long[0];
+
+    private static final Map<Permission, Integer> ordinals = new ConcurrentHashMap<>();
+
+    /**
+     * The permissions indexed by their ordinals. Replaced, never modified, when an ordinal is assigned.
+     */
+    private static volatile Permission[] permissions = new Permission[0];
+
+    private PermissionIndex() {
+    }
+
+    /**
+     * Returns the ordinal of the {@link Permission}, assigning one if needed.
+     *
+     * @param permission the permission
+     * @return the ordinal of the permission
+     */
+    static int ordinal(Permission permission) {
+        Integer ordinal = ordinals.get(permission);
+        return ordinal != null ? ordinal : assignOrdinal(permission);
+    }
+
+    private static synchronized int assignOrdinal(Permission permission) {
+        Integer ordinal = ordinals.get(permission);
+        if (ordinal == null) {
+            ordinal = ordinals.size();
+            Permission[] newPermissions = Arrays.copyOf(permissions, ordinal + 1);
+            newPermissions[ordinal] = permission;
+            permissions = newPermissions;
+            ordinals.put(permission, ordinal);
+        }
+        return ordinal;
+    }
+
+    /**
+     * Creates a mask containing the given permissions.
+     *
+     * @param permissions the permissions to be set in the mask
+     * @return a new mask
+     */
+    @NonNull
+    static long[] maskOf(Collection<Permission> permissions) {
+        long[] mask = EMPTY_MASK;
+        for (Permission permission : permissions) {
+            int ordinal = ordinal(permission);
+            int word = ordinal >>> ADDRESS_BITS_PER_WORD;
+            if (word >= mask.length) {
+                mask = Arrays.copyOf(mask, word + 1);
+            }
+            mask[word] |= 1L << ordinal;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the permissions set in a mask.
+     *
+     * @param mask a mask
+     * @return the permissions whose bits are set in the mask, ordered by their ordinals
+     */
+    @NonNull
+    static List<Permission> permissionsOf(long[] mask) {
+        Permission[] all = permissions;
+        List<Permission> result = new ArrayList<>();
+        for (int word = 0; word < mask.length; word++) {
+            long bits = mask[word];
+            while (bits != 0) {
+                int ordinal = (word << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(bits);
+                result.add(all[ordinal]);
+                bits &= bits - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the union of two masks.
+     *
+     * @param a a mask
+     * @param b another mask
+     * @return a new mask containing the bits set in {@code a} or {@code b}
+     */
+    @NonNull
+    static long[] or(long[] a, long[] b) {
+        long[] longer = a.length >= b.length ? a : b;
+        long[] shorter = longer == a ? b : a;
+        long[] result = Arrays.copyOf(longer, longer.length);
+        for (int i = 0; i < shorter.length; i++) {
+            result[i] |= shorter[i];
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether the bit for an ordinal is set in a mask.
+     *
+     * @param mask    a mask
+     * @param ordinal the ordinal of a permission
+     * @return true if the bit is set
+     */
+    static boolean contains(long[] mask, int ordinal) {
+        int word = ordinal >>> ADDRESS_BITS_PER_WORD;
+        return word < mask.length && (mask[word] & (1L << ordinal)) != 0;
+    }
+
+    /**
+     * Checks whether two masks have the same bits set.
+     *
+     * @param a a mask
+     * @param b another mask
+     * @return true if exactly the same bits are set in both masks
+     */
+    static boolean equals(long[] a, long[] b) {
+        long[] longer = a.length >= b.length ? a : b;
+        long[] shorter = longer == a ? b : a;
+        for (int i = 0; i < longer.length; i++) {
+            if (longer[i] != (i < shorter.length ? shorter[i] : 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code for a mask which is consistent with {@link #equals(long[], long[])}.
+     *
+     * @param mask a mask
+     * @return the hash code of the mask
+     */
+    static int hashCode(long[] mask) {
+        int length = mask.length;
+        while (length > 0 && mask[length - 1] == 0) {
+            length--;
+        }
+
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + Long.hashCode(mask[i]);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,172 @@
+package io.jenkins.plugins.folderauth.acls;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Merges the permissions granted to all sids of an {@link Authentication} by the {@link GenericAclImpl}s of one
+ * {@link FolderAclTrie} into a single {@link Profile}.
+ * <p>
+ * A check with a {@link Profile} looks up each {@link GenericAclImpl} on the path to an item once, instead of
+ * once for the principal and for every authority. Profiles are cached by the set of sids, so that all users with
+ * the same authorities share one, and in front of that by the identity of the {@link Authentication}, which is
+ * reused by all requests of a session. Both caches are bounded and belong to the trie, so they are discarded with
+ * the version of the strategy that built it.
+ */
+@ParametersAreNonnullByDefault
+final class PermissionProfiles {
+    /**
+     * Maximum number of distinct sets of sids with a cached {@link Profile}.
+     */
+    private static final int MAX_PROFILES = 1024;
+
+    /**
+     * Maximum number of {@link Authentication}s mapped to their {@link Profile}.
+     */
+    private static final int MAX_AUTHENTICATIONS = 4096;
+
+    private final AbstractAcl rootAcl;
+
+    /**
+     * The distinct {@link GenericAclImpl}s of the trie which assign any permission to each sid.
+     */
+    private final Map<String, List<GenericAclImpl>> aclsBySid;
+
+    /**
+     * Dense ordinals of the sids in {@link #aclsBySid}.
+     */
+    private final Map<String, Integer> sidOrdinals = new HashMap<>();
+
+    private final Cache<Set<String>, Profile> profilesBySids = CacheBuilder.newBuilder()
+                                                                   .maximumSize(MAX_PROFILES)
+                                                                   .build();
+
+    /**
+     * Weak keys are compared by identity, so finding the {@link Profile} of a known {@link Authentication} does
+     * not iterate over its authorities.
+     */
+    private final Cache<Authentication, Profile> profilesByAuthentication = CacheBuilder.newBuilder()
+                                                                                .weakKeys()
+                                                                                .maximumSize(MAX_AUTHENTICATIONS)
+                                                                                .build();
+
+    PermissionProfiles(AbstractAcl rootAcl, Map<String, List<GenericAclImpl>> aclsBySid) {
+        this.rootAcl = rootAcl;
+        this.aclsBySid = aclsBySid;
+        for (String sid : aclsBySid.keySet()) {
+            sidOrdinals.put(sid, sidOrdinals.size());
+        }
+    }
+
+    /**
+     * Returns the ordinals of the sids which are assigned any permission by some folder of the trie.
+     *
+     * @param sids the sids
+     * @return the ordinals of those of {@code sids} which have any folder grant
+     */
+    @NonNull
+    BitSet getOrdinals(Collection<String> sids) {
+        BitSet ordinals = new BitSet();
+        for (String sid : sids) {
+            Integer ordinal = sidOrdinals.get(sid);
+            if (ordinal != null) {
+                ordinals.set(ordinal);
+            }
+        }
+        return ordinals;
+    }
+
+    /**
+     * Returns the {@link Profile} of an {@link Authentication}, compiling it if needed.
+     *
+     * @param a the authentication
+     * @return the merged permissions of all sids of {@code a}
+     */
+    @NonNull
+    Profile get(Authentication a) {
+        Profile profile = profilesByAuthentication.getIfPresent(a);
+        if (profile == null) {
+            profile = profilesBySids.asMap().computeIfAbsent(new HashSet<>(rootAcl.getSids(a)), this::compile);
+            profilesByAuthentication.put(a, profile);
+        }
+        return profile;
+    }
+
+    @NonNull
+    private Profile compile(Set<String> sids) {
+        Map<GenericAclImpl, long[]> masks = new IdentityHashMap<>();
+        for (String sid : sids) {
+            for (GenericAclImpl acl : aclsBySid.getOrDefault(sid, Collections.emptyList())) {
+                masks.merge(acl, acl.permissionList.get(sid), PermissionIndex::or);
+            }
+        }
+        return new Profile(rootAcl.getPermissions(List.copyOf(sids)), masks, getOrdinals(sids));
+    }
+
+    /**
+     * The permissions granted to one set of sids by the root {@link AbstractAcl} and by each
+     * {@link GenericAclImpl} of a trie.
+     */
+    static final class Profile {
+        private final long[] rootMask;
+
+        /**
+         * Masks of the permissions granted by every {@link GenericAclImpl} which grants anything to the sids.
+         */
+        private final Map<GenericAclImpl, long[]> aclMasks;
+
+        /**
+         * Ordinals of the sids of this profile which are assigned any permission by some folder of the trie.
+         */
+        private final BitSet sidOrdinals;
+
+        private Profile(long[] rootMask, Map<GenericAclImpl, long[]> aclMasks, BitSet sidOrdinals) {
+            this.rootMask = rootMask;
+            this.aclMasks = aclMasks;
+            this.sidOrdinals = sidOrdinals;
+        }
+
+        @NonNull
+        long[] getRootMask() {
+            return rootMask;
+        }
+
+        /**
+         * @return false if no folder of the trie grants anything to the sids, so that every check not granted by
+         *         the root {@link AbstractAcl} is denied
+         */
+        boolean hasFolderGrants() {
+            return !aclMasks.isEmpty();
+        }
+
+        /**
+         * @param pathSids the ordinals of the sids assigned any permission on the folders of a path, as returned
+         *                 by {@link PermissionProfiles#getOrdinals(Collection)}
+         * @return false if none of the folders grants anything to the sids of this profile
+         */
+        boolean isGrantedAnythingBy(BitSet pathSids) {
+            return sidOrdinals.intersects(pathSids);
+        }
+
+        /**
+         * @return the mask of permissions granted to the sids by {@code acl}, or null if it grants nothing to them
+         */
+        @CheckForNull
+        long[] getMask(GenericAclImpl acl) {
+            return aclMasks.get(acl);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.jenkins.plugins.folderauth.acls;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.security.Permission;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An immutable set of {@link Permission}s backed by a permission mask.
+ * <p>
+ * The set contains every permission implied by the permissions that were granted, so {@link #contains(Object)}
+ * answers the same as {@link hudson.security.ACL#hasPermission2} with a single bit test. The members are listed
+ * once when the set is created, among the permissions registered at that time.
+ */
+public final class PermissionSet extends AbstractSet<Permission> {
+    private final long[] mask;
+    private final PermissionClosure closure;
+    private final List<Permission> members;
+
+    PermissionSet(long[] mask, PermissionClosure closure) {
+        this.mask = mask;
+        this.closure = closure;
+
+        List<Permission> permissions = new ArrayList<>();
+        for (Permission permission : Permission.getAll()) {
+            if (closure.implies(mask, permission)) {
+                permissions.add(permission);
+            }
+        }
+        members = Collections.unmodifiableList(permissions);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Permission && closure.implies(mask, (Permission) o);
+    }
+
+    @NonNull
+    @Override
+    public Iterator<Permission> iterator() {
+        return members.iterator();
+    }
+
+    @Override
+    public int size() {
+        return members.size();
+    }
+}
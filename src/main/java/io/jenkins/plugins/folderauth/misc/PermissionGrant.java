@@ -0,0 +1,123 @@
+package io.jenkins.plugins.folderauth.misc;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Objects;
+import javax.annotation.ParametersAreNonnullByDefault;
+import net.sf.json.JSONObject;
+
+/**
+ * A permission held by a sid through a role, and where it is applicable.
+ *
+ * @see io.jenkins.plugins.folderauth.FolderBasedAuthorizationStrategy#getGrants(hudson.security.Permission)
+ */
+@ParametersAreNonnullByDefault
+public final class PermissionGrant {
+    /**
+     * Where a permission is granted.
+     */
+    public enum Scope {
+        /**
+         * Granted everywhere through a {@link io.jenkins.plugins.folderauth.roles.GlobalRole}.
+         */
+        GLOBAL,
+        /**
+         * Granted on a folder and everything below it through a {@link io.jenkins.plugins.folderauth.roles.FolderRole}.
+         */
+        FOLDER,
+        /**
+         * Granted on an agent through an {@link io.jenkins.plugins.folderauth.roles.AgentRole}.
+         */
+        AGENT
+    }
+
+    private final String sid;
+    private final Scope scope;
+    @CheckForNull
+    private final String target;
+    private final String roleName;
+
+    public PermissionGrant(String sid, Scope scope, @CheckForNull String target, String roleName) {
+        this.sid = sid;
+        this.scope = scope;
+        this.target = target;
+        this.roleName = roleName;
+    }
+
+    /**
+     * The sid holding the permission.
+     *
+     * @return the sid
+     */
+    @NonNull
+    public String getSid() {
+        return sid;
+    }
+
+    /**
+     * The kind of the role granting the permission.
+     *
+     * @return the scope of the grant
+     */
+    @NonNull
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * The full name of the folder or the name of the agent on which the permission is granted.
+     *
+     * @return the folder or agent, or null for {@link Scope#GLOBAL}
+     */
+    @CheckForNull
+    public String getTarget() {
+        return target;
+    }
+
+    /**
+     * The name of the role granting the permission.
+     *
+     * @return the name of the role
+     */
+    @NonNull
+    public String getRoleName() {
+        return roleName;
+    }
+
+    /**
+     * Converts this grant to JSON for the REST API.
+     *
+     * @return the sid, scope, target and role of this grant
+     */
+    @NonNull
+    public JSONObject toJSON() {
+        JSONObject json = new JSONObject();
+        json.put("sid", sid);
+        json.put("scope", scope.name());
+        if (target != null) {
+            json.put("target", target);
+        }
+        json.put("roleName", roleName);
+        return json;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PermissionGrant that = (PermissionGrant) o;
+        return sid.equals(that.sid) && scope == that.scope && Objects.equals(target, that.target) &&
+                   roleName.equals(that.roleName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sid, scope, target, roleName);
+    }
+
+    @Override
+    public String toString() {
+        return "PermissionGrant{sid='" + sid + "', scope=" + scope + ", target='" + target + "', roleName='" +
+                   roleName + "'}";
+    }
+}
@@ -0,0 +1,123 @@
+package io.jenkins.plugins.folderauth.misc;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.jenkins.plugins.folderauth.roles.AbstractRole;
+import io.jenkins.plugins.folderauth.roles.AgentRole;
+import io.jenkins.plugins.folderauth.roles.FolderRole;
+import io.jenkins.plugins.folderauth.roles.GlobalRole;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.ParametersAreNonnullByDefault;
+import net.sf.json.JSONObject;
+
+/**
+ * The roles a sid has been assigned to, as an immutable object.
+ *
+ * @see io.jenkins.plugins.folderauth.FolderBasedAuthorizationStrategy#getAssignments(String)
+ */
+@ParametersAreNonnullByDefault
+public final class SidAssignments {
+    /**
+     * Assignments of a sid which has not been assigned to any role.
+     */
+    public static final SidAssignments EMPTY = new SidAssignments(Collections.emptySet(), Collections.emptySet(),
+        Collections.emptySet());
+
+    private final Set<GlobalRole> globalRoles;
+    private final Set<FolderRole> folderRoles;
+    private final Set<AgentRole> agentRoles;
+
+    public SidAssignments(Set<GlobalRole> globalRoles, Set<FolderRole> folderRoles, Set<AgentRole> agentRoles) {
+        this.globalRoles = Collections.unmodifiableSet(new HashSet<>(globalRoles));
+        this.folderRoles = Collections.unmodifiableSet(new HashSet<>(folderRoles));
+        this.agentRoles = Collections.unmodifiableSet(new HashSet<>(agentRoles));
+    }
+
+    /**
+     * Returns the {@link GlobalRole}s the sid has been assigned to.
+     *
+     * @return the global roles of the sid
+     */
+    @NonNull
+    public Set<GlobalRole> getGlobalRoles() {
+        return globalRoles;
+    }
+
+    /**
+     * Returns the {@link FolderRole}s the sid has been assigned to.
+     *
+     * @return the folder roles of the sid
+     */
+    @NonNull
+    public Set<FolderRole> getFolderRoles() {
+        return folderRoles;
+    }
+
+    /**
+     * Returns the {@link AgentRole}s the sid has been assigned to.
+     *
+     * @return the agent roles of the sid
+     */
+    @NonNull
+    public Set<AgentRole> getAgentRoles() {
+        return agentRoles;
+    }
+
+    /**
+     * Returns the full names of the folders on which the sid has been assigned a {@link FolderRole}.
+     *
+     * @return the sorted full names of the folders
+     */
+    @NonNull
+    public Set<String> getFolderNames() {
+        Set<String> folderNames = new TreeSet<>();
+        folderRoles.forEach(role -> folderNames.addAll(role.getFolderNames()));
+        return folderNames;
+    }
+
+    /**
+     * Returns the names of the agents on which the sid has been assigned an {@link AgentRole}.
+     *
+     * @return the sorted names of the agents
+     */
+    @NonNull
+    public Set<String> getAgentNames() {
+        Set<String> agentNames = new TreeSet<>();
+        agentRoles.forEach(role -> agentNames.addAll(role.getAgents()));
+        return agentNames;
+    }
+
+    /**
+     * Checks whether the sid has not been assigned to any role.
+     *
+     * @return true if the sid has no roles
+     */
+    public boolean isEmpty() {
+        return globalRoles.isEmpty() && folderRoles.isEmpty() && agentRoles.isEmpty();
+    }
+
+    /**
+     * Converts these assignments to JSON for the REST API.
+     *
+     * @return the names of the roles, folders and agents of the sid
+     */
+    @NonNull
+    public JSONObject toJSON() {
+        JSONObject json = new JSONObject();
+        json.put("globalRoles", getNames(globalRoles));
+        json.put("folderRoles", getNames(folderRoles));
+        json.put("agentRoles", getNames(agentRoles));
+        json.put("folders", getFolderNames());
+        json.put("agents", getAgentNames());
+        return json;
+    }
+
+    @NonNull
+    private static Set<String> getNames(Set<? extends AbstractRole> roles) {
+        Set<String> names = new TreeSet<>();
+        roles.forEach(role -> names.add(role.getName()));
+        return names;
+    }
+}
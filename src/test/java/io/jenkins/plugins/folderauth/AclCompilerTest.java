@@ -0,0 +1,45 @@
+package io.jenkins.plugins.folderauth;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.Test;
+
+public class AclCompilerTest {
+    @Test
+    public void resultsAreReturnedByKey() {
+        Map<Integer, Callable<String>> tasks = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            int n = i;
+            tasks.put(n, () -> "task" + n);
+        }
+
+        Map<Integer, String> results = AclCompiler.compileAll(tasks);
+        assertEquals(100, results.size());
+        results.forEach((key, result) -> assertEquals("task" + key, result));
+    }
+
+    @Test
+    public void exceptionsArePropagated() {
+        Map<String, Callable<String>> tasks = new HashMap<>();
+        tasks.put("good", () -> "good");
+        tasks.put("bad", () -> {
+            throw new IllegalArgumentException("bad");
+        });
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> AclCompiler.compileAll(tasks));
+        assertEquals("bad", e.getMessage());
+    }
+
+    @Test
+    public void allTasksAreRun() {
+        Set<String> done = ConcurrentHashMap.newKeySet();
+        AclCompiler.runAll(() -> done.add("caller"), () -> done.add("other1"), () -> done.add("other2"));
+        assertEquals(Set.of("caller", "other1", "other2"), done);
+    }
+}
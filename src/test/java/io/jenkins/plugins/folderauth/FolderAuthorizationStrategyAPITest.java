@@ -6,15 +6,25 @@ import static java.util.Collections.singleton;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import hudson.model.Computer;
 import hudson.model.Item;
 import hudson.security.AuthorizationStrategy;
 import hudson.security.Permission;
+import io.jenkins.plugins.folderauth.misc.PermissionGrant;
+import io.jenkins.plugins.folderauth.misc.SidAssignments;
 import io.jenkins.plugins.folderauth.roles.AgentRole;
 import io.jenkins.plugins.folderauth.roles.FolderRole;
 import io.jenkins.plugins.folderauth.roles.GlobalRole;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import jenkins.model.Jenkins;
 import net.sf.json.JSONObject;
 import org.junit.Before;
@@ -178,6 +188,110 @@ public class FolderAuthorizationStrategyAPITest {
         assertFalse(updatedRole.getSids().contains(sid));
     }
 
+    @Test
+    public void concurrentModificationsAreNotLost() throws Exception {
+        FolderAuthorizationStrategyAPI.addFolderRole(new FolderRole("foo", wrapPermissions(Item.READ),
+            singleton("folderFoo")));
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                String sid = "user" + i;
+                futures.add(executor.submit(() -> FolderAuthorizationStrategyAPI.assignSidToFolderRole(sid, "foo")));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        FolderBasedAuthorizationStrategy strategy = (FolderBasedAuthorizationStrategy) j.jenkins.getAuthorizationStrategy();
+        assertEquals(64, strategy.getFolderRole("foo").getSids().size());
+    }
+
+    @Test
+    public void rolesByName() {
+        FolderAuthorizationStrategyAPI.addFolderRole(new FolderRole("foo", wrapPermissions(Item.READ),
+            singleton("folderFoo")));
+        FolderAuthorizationStrategyAPI.assignSidToFolderRole("user1", "foo");
+
+        FolderBasedAuthorizationStrategy strategy = (FolderBasedAuthorizationStrategy) j.jenkins.getAuthorizationStrategy();
+        FolderRole role = strategy.getFolderRole("foo");
+        assertEquals(singleton("user1"), role.getSids());
+        assertEquals(1, strategy.getFolderRoles().size());
+        assertNull(strategy.getGlobalRole("foo"));
+
+        FolderAuthorizationStrategyAPI.deleteFolderRole("foo");
+        strategy = (FolderBasedAuthorizationStrategy) j.jenkins.getAuthorizationStrategy();
+        assertNull(strategy.getFolderRole("foo"));
+        assertTrue(strategy.getFolderRoles().isEmpty());
+    }
+
+    @Test
+    public void sidAssignments() {
+        String sid = "user1";
+        FolderAuthorizationStrategyAPI.addGlobalRole(new GlobalRole("read", wrapPermissions(Jenkins.READ),
+            singleton(sid)));
+        FolderAuthorizationStrategyAPI.addFolderRole(new FolderRole("foo", wrapPermissions(Item.READ),
+            Set.of("folderFoo", "folderBar"), singleton(sid)));
+        FolderAuthorizationStrategyAPI.addFolderRole(new FolderRole("baz", wrapPermissions(Item.READ),
+            singleton("folderBaz"), singleton("user2")));
+        FolderAuthorizationStrategyAPI.addAgentRole(new AgentRole("bar", wrapPermissions(Computer.CONNECT),
+            singleton("agentBar"), singleton(sid)));
+
+        SidAssignments assignments = FolderAuthorizationStrategyAPI.getAssignments(sid);
+        assertEquals(1, assignments.getGlobalRoles().size());
+        assertEquals("read", assignments.toJSON().getJSONArray("globalRoles").getString(0));
+        assertEquals(1, assignments.getFolderRoles().size());
+        assertEquals(Set.of("folderFoo", "folderBar"), assignments.getFolderNames());
+        assertEquals(singleton("agentBar"), assignments.getAgentNames());
+        assertTrue(FolderAuthorizationStrategyAPI.getAssignments("nobody").isEmpty());
+
+        FolderAuthorizationStrategyAPI.removeSidFromAllRoles(sid);
+
+        assertTrue(FolderAuthorizationStrategyAPI.getAssignments(sid).isEmpty());
+        // roles of other sids are left alone
+        assertEquals(singleton("folderBaz"), FolderAuthorizationStrategyAPI.getAssignments("user2").getFolderNames());
+        FolderBasedAuthorizationStrategy strategy = (FolderBasedAuthorizationStrategy) j.jenkins.getAuthorizationStrategy();
+        assertTrue(strategy.getGlobalRoles().stream().anyMatch(r -> r.getName().equals("read")));
+        assertTrue(strategy.getFolderRoles().stream().anyMatch(r -> r.getName().equals("foo")));
+        assertTrue(strategy.getAgentRoles().stream().anyMatch(r -> r.getName().equals("bar")));
+        assertTrue(strategy.getGroups().contains("user2"));
+        assertFalse(strategy.getGroups().contains(sid));
+    }
+
+    @Test
+    public void permissionGrants() {
+        FolderAuthorizationStrategyAPI.addFolderRole(new FolderRole("configure", wrapPermissions(Item.CONFIGURE),
+            Set.of("folder1", "folder2"), singleton("user1")));
+        FolderAuthorizationStrategyAPI.addFolderRole(new FolderRole("read", wrapPermissions(Item.READ),
+            singleton("folder3"), singleton("user2")));
+        FolderAuthorizationStrategyAPI.addAgentRole(new AgentRole("connect", wrapPermissions(Computer.CONNECT),
+            singleton("agent1"), singleton("user3")));
+
+        assertEquals(Set.of(
+            new PermissionGrant("user1", PermissionGrant.Scope.FOLDER, "folder1", "configure"),
+            new PermissionGrant("user1", PermissionGrant.Scope.FOLDER, "folder2", "configure")
+        ), getGrantsExceptAdmin(Item.CONFIGURE));
+
+        // Item.CONFIGURE implies Item.EXTENDED_READ
+        assertEquals(Set.of(
+            new PermissionGrant("user1", PermissionGrant.Scope.FOLDER, "folder1", "configure"),
+            new PermissionGrant("user1", PermissionGrant.Scope.FOLDER, "folder2", "configure")
+        ), getGrantsExceptAdmin(Item.EXTENDED_READ));
+
+        assertEquals(singleton(new PermissionGrant("user3", PermissionGrant.Scope.AGENT, "agent1", "connect")),
+            getGrantsExceptAdmin(Computer.CONNECT));
+    }
+
+    private static Set<PermissionGrant> getGrantsExceptAdmin(Permission permission) {
+        Set<PermissionGrant> grants = new HashSet<>(FolderAuthorizationStrategyAPI.getGrants(permission));
+        grants.removeIf(grant -> grant.getRoleName().equals("admin"));
+        return grants;
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void shouldNotAllowDuplicateNamesInGlobalRoles() {
         // the "admin" role should already exist
@@ -1,28 +1,44 @@
 package io.jenkins.plugins.folderauth;
 
 import com.cloudbees.hudson.plugins.folder.Folder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableSet;
+import hudson.model.AbstractItem;
+import hudson.model.Computer;
+import hudson.model.Descriptor;
 import hudson.model.FreeStyleProject;
 import hudson.model.Item;
+import hudson.model.Items;
 import hudson.model.User;
 import hudson.security.ACL;
 import hudson.security.ACLContext;
 import hudson.security.Permission;
 import hudson.security.PermissionGroup;
+import hudson.security.SidACL;
+import io.jenkins.plugins.folderauth.roles.AgentRole;
 import io.jenkins.plugins.folderauth.roles.FolderRole;
 import io.jenkins.plugins.folderauth.roles.GlobalRole;
 import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.jvnet.hudson.test.JenkinsRule;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import static io.jenkins.plugins.folderauth.misc.PermissionWrapper.wrapPermissions;
+import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.assertNotSame;
+import static junit.framework.TestCase.assertSame;
 import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
 
 public class FolderBasedAuthorizationStrategyTest {
     @Rule
@@ -127,4 +143,354 @@ public class FolderBasedAuthorizationStrategyTest {
             assertFalse(job1.hasPermission(Item.CONFIGURE));
         }
     }
+
+    @Test
+    public void jobAclCache() throws Exception {
+        // rebuild the strategy so that its cache is empty
+        FolderAuthorizationStrategyAPI.assignSidToGlobalRole("admin", "adminRole");
+        FolderBasedAuthorizationStrategy strategy =
+                (FolderBasedAuthorizationStrategy) jenkinsRule.jenkins.getAuthorizationStrategy();
+        CacheStats before = strategy.getJobAclCacheStats();
+        assertSame(strategy.getACL(job1), strategy.getACL(job1));
+        CacheStats stats = strategy.getJobAclCacheStats().minus(before);
+        assertEquals(1, stats.missCount());
+        // the second lookup is answered by the cache by item
+        assertEquals(0, stats.hitCount());
+        assertEquals(1, strategy.getItemAclCacheStats().hitCount());
+
+        FolderBasedAuthorizationStrategy.DescriptorImpl descriptor =
+                jenkinsRule.jenkins.getDescriptorByType(FolderBasedAuthorizationStrategy.DescriptorImpl.class);
+        assertEquals(JobAclCacheSettings.fromSystemProperties(), descriptor.getJobAclCacheSettings());
+
+        JSONObject formData = new JSONObject();
+        formData.put("jobAclCacheMaximumSize", 0);
+        formData.put("jobAclCacheItemMaximumSize", 0);
+        formData.put("jobAclCacheExpireAfterWriteMinutes", 0);
+        formData.put("jobAclCacheExpireAfterAccessMinutes", 5);
+        formData.put("jobAclCacheValues", "SOFT");
+        FolderBasedAuthorizationStrategy configured = descriptor.newInstance(null, formData);
+
+        JobAclCacheSettings settings = new JobAclCacheSettings(0, 0, 0, 5, JobAclCacheSettings.ValueStrength.SOFT);
+        assertEquals(settings, configured.getJobAclCacheSettings());
+        assertNotSame(strategy, configured);
+        assertEquals(strategy.getFolderRoles(), configured.getFolderRoles());
+        configured.getACL(job1);
+        assertEquals(0, configured.getJobAclCacheSize());
+        // the settings are only persisted once the configuration is saved with the new strategy
+        assertEquals(JobAclCacheSettings.fromSystemProperties(), descriptor.getJobAclCacheSettings());
+
+        jenkinsRule.jenkins.setAuthorizationStrategy(configured);
+        jenkinsRule.jenkins.save();
+        assertEquals(settings, descriptor.getJobAclCacheSettings());
+
+        // submitting the same settings again keeps the strategy
+        assertSame(configured, descriptor.newInstance(null, formData));
+
+        // later versions keep the settings
+        FolderAuthorizationStrategyAPI.assignSidToFolderRole("user1", "folderRole2");
+        FolderBasedAuthorizationStrategy changed =
+                (FolderBasedAuthorizationStrategy) jenkinsRule.jenkins.getAuthorizationStrategy();
+        assertEquals(settings, changed.getJobAclCacheSettings());
+    }
+
+    @Test
+    public void rejectedJobAclCacheSettingsAreNotPersisted() throws Exception {
+        FolderBasedAuthorizationStrategy.DescriptorImpl descriptor =
+                jenkinsRule.jenkins.getDescriptorByType(FolderBasedAuthorizationStrategy.DescriptorImpl.class);
+        JSONObject formData = new JSONObject();
+        formData.put("jobAclCacheMaximumSize", 10);
+        formData.put("jobAclCacheItemMaximumSize", 10);
+        formData.put("jobAclCacheExpireAfterWriteMinutes", 0);
+        formData.put("jobAclCacheExpireAfterAccessMinutes", 0);
+        formData.put("jobAclCacheValues", "UNKNOWN");
+        try {
+            descriptor.newInstance(null, formData);
+            fail("the form should be rejected");
+        } catch (Descriptor.FormException e) {
+            assertEquals("jobAclCacheMaximumSize", e.getFormField());
+        }
+
+        // a form accepted by the strategy but not saved
+        formData.put("jobAclCacheValues", "STRONG");
+        FolderBasedAuthorizationStrategy configured = descriptor.newInstance(null, formData);
+        assertEquals(10, configured.getJobAclCacheMaximumSize());
+        assertEquals(JobAclCacheSettings.fromSystemProperties(), descriptor.getJobAclCacheSettings());
+    }
+
+    @Test
+    public void jobAclCacheIsSharedByRuledFolder() throws Exception {
+        FreeStyleProject job3 = child2.createProject(FreeStyleProject.class, "job3");
+        FreeStyleProject job4 = child3.createProject(FreeStyleProject.class, "job4");
+        // rebuild the strategy so that its cache is empty
+        FolderAuthorizationStrategyAPI.assignSidToGlobalRole("admin", "adminRole");
+        FolderBasedAuthorizationStrategy strategy =
+                (FolderBasedAuthorizationStrategy) jenkinsRule.jenkins.getAuthorizationStrategy();
+
+        SidACL job1Acl = strategy.getACL(job1);
+        SidACL job2Acl = strategy.getACL(job2);
+        assertNotSame(job1Acl, job2Acl);
+        long size = strategy.getJobAclCacheSize();
+
+        // root/child2 has no roles of its own and shares the entry of root, root/child3 shares that of root/child1
+        assertSame(job1Acl, strategy.getACL(job3));
+        assertSame(job1Acl, strategy.getACL(child2));
+        assertSame(job1Acl, strategy.getACL(root));
+        assertSame(job2Acl, strategy.getACL(job4));
+        assertSame(job2Acl, strategy.getACL(child3));
+        assertEquals(size, strategy.getJobAclCacheSize());
+
+        try (ACLContext ignored = ACL.as(user2)) {
+            assertTrue(job4.hasPermission(Item.CONFIGURE));
+            assertFalse(job3.hasPermission(Item.CONFIGURE));
+        }
+
+        // a new role below a cached folder gets its own entry
+        FolderAuthorizationStrategyAPI.addFolderRole(new FolderRole("folderRole3", wrapPermissions(Item.CONFIGURE),
+                ImmutableSet.of("root/child2")));
+        FolderAuthorizationStrategyAPI.assignSidToFolderRole("user1", "folderRole3");
+        try (ACLContext ignored = ACL.as(user1)) {
+            assertTrue(job3.hasPermission(Item.CONFIGURE));
+            assertFalse(job4.hasPermission(Item.CONFIGURE));
+        }
+    }
+
+    @Test
+    public void cacheWarmUp() {
+        // rebuild the strategy so that its caches are empty
+        FolderAuthorizationStrategyAPI.assignSidToGlobalRole("admin", "adminRole");
+        FolderBasedAuthorizationStrategy strategy =
+                (FolderBasedAuthorizationStrategy) jenkinsRule.jenkins.getAuthorizationStrategy();
+
+        // items below no folder role, root and root/child1
+        AclCacheWarmUp.Progress progress = AclCacheWarmUp.warmUp(strategy);
+        assertSame(progress, AclCacheWarmUp.getProgress());
+        assertFalse(progress.isRunning());
+        assertFalse(progress.isCancelled());
+        assertEquals(3, progress.getTotal());
+        assertEquals(3, progress.getDone());
+        assertEquals(100, progress.getPercentage());
+
+        // the items themselves are left to the cache by item
+        CacheStats before = strategy.getJobAclCacheStats();
+        strategy.getACL(job1);
+        strategy.getACL(job2);
+        CacheStats stats = strategy.getJobAclCacheStats().minus(before);
+        assertEquals(2, stats.hitCount());
+        assertEquals(0, stats.missCount());
+    }
+
+    @Test
+    public void itemAclCacheIsInvalidatedOnMove() throws Exception {
+        FolderBasedAuthorizationStrategy strategy =
+                (FolderBasedAuthorizationStrategy) jenkinsRule.jenkins.getAuthorizationStrategy();
+        try (ACLContext ignored = ACL.as(user2)) {
+            assertFalse(job1.hasPermission(Item.CONFIGURE));
+        }
+        SidACL acl = strategy.getACL(job1);
+
+        // root/child2/job1 moves below root/child1, where user2 can configure
+        Items.move(child2, child1);
+        assertNotSame(acl, strategy.getACL(job1));
+        try (ACLContext ignored = ACL.as(user2)) {
+            assertTrue(job1.hasPermission(Item.CONFIGURE));
+        }
+
+        job1.renameTo("renamed");
+        try (ACLContext ignored = ACL.as(user2)) {
+            assertTrue(job1.hasPermission(Item.CONFIGURE));
+        }
+    }
+
+    @Test
+    public void jobAclCacheIsCarriedOver() {
+        FolderBasedAuthorizationStrategy before =
+                (FolderBasedAuthorizationStrategy) jenkinsRule.jenkins.getAuthorizationStrategy();
+        SidACL job1Acl = before.getACL(job1);
+        SidACL job2Acl = before.getACL(job2);
+
+        // only the ACLs on and below root/child1 are affected
+        FolderAuthorizationStrategyAPI.assignSidToFolderRole("user1", "folderRole2");
+        FolderBasedAuthorizationStrategy after =
+                (FolderBasedAuthorizationStrategy) jenkinsRule.jenkins.getAuthorizationStrategy();
+        assertSame(job1Acl, after.getACL(job1));
+        assertNotSame(job2Acl, after.getACL(job2));
+
+        try (ACLContext ignored = ACL.as(user1)) {
+            assertTrue(job2.hasPermission(Item.CONFIGURE));
+            assertFalse(job1.hasPermission(Item.CONFIGURE));
+        }
+    }
+
+    @Test
+    public void itemAclCacheIsShared() {
+        FolderBasedAuthorizationStrategy before =
+                (FolderBasedAuthorizationStrategy) jenkinsRule.jenkins.getAuthorizationStrategy();
+        SidACL job1Acl = before.getACL(job1);
+
+        // the global and folder roles are unchanged
+        FolderAuthorizationStrategyAPI.addAgentRole(new AgentRole("agentRole1", wrapPermissions(Computer.CONFIGURE),
+                ImmutableSet.of("agent1")));
+        FolderBasedAuthorizationStrategy after =
+                (FolderBasedAuthorizationStrategy) jenkinsRule.jenkins.getAuthorizationStrategy();
+        assertNotSame(before, after);
+        CacheStats stats = after.getItemAclCacheStats();
+        assertSame(job1Acl, after.getACL(job1));
+        assertEquals(1, after.getItemAclCacheStats().minus(stats).hitCount());
+    }
+
+    @Test
+    public void permissionRegisteredBetweenVersions() throws Exception {
+        FolderBasedAuthorizationStrategy.FLATTEN_INHERITED_ACLS = true;
+        try {
+            Jenkins jenkins = jenkinsRule.jenkins;
+            jenkinsRule.createSlave("agent1", null, null);
+            FolderAuthorizationStrategyAPI.addAgentRole(new AgentRole("agentRole1",
+                    wrapPermissions(Computer.CONFIGURE), ImmutableSet.of("agent1")));
+
+            // e.g. a plugin installed without a restart
+            Permission permission = new Permission(Item.PERMISSIONS, "RegisteredBetweenVersions", null,
+                    Jenkins.ADMINISTER);
+
+            // the global roles are kept, while the agent ACLs and the folder ACLs are rebuilt
+            FolderAuthorizationStrategyAPI.assignSidToAgentRole("user1", "agentRole1");
+            FolderAuthorizationStrategyAPI.assignSidToFolderRole("user1", "folderRole2");
+
+            Computer computer = jenkins.getComputer("agent1");
+            assertNotNull(computer);
+            try (ACLContext ignored = ACL.as(admin)) {
+                assertTrue(computer.hasPermission(permission));
+                assertTrue(job2.hasPermission(permission));
+            }
+            try (ACLContext ignored = ACL.as(user1)) {
+                assertTrue(computer.hasPermission(Computer.CONFIGURE));
+                assertFalse(computer.hasPermission(permission));
+                assertFalse(job2.hasPermission(permission));
+            }
+        } finally {
+            FolderBasedAuthorizationStrategy.FLATTEN_INHERITED_ACLS = false;
+        }
+    }
+
+    @Test
+    public void optionsApplyToTheNextVersion() {
+        FolderBasedAuthorizationStrategy before =
+                (FolderBasedAuthorizationStrategy) jenkinsRule.jenkins.getAuthorizationStrategy();
+        SidACL job2Acl = before.getACL(job2);
+
+        FolderBasedAuthorizationStrategy.PARTITION_BY_TOP_LEVEL_FOLDER = true;
+        FolderBasedAuthorizationStrategy.USE_PERMISSION_PROFILES = true;
+        try {
+            // the roles are unchanged, but the ACLs of jobs are built differently
+            FolderBasedAuthorizationStrategy after = before.withRoles(null, null, null);
+            assertNotSame(before.getJobAcls(job2.getFullName()), after.getJobAcls(job2.getFullName()));
+            assertNotSame(job2Acl, after.getACL(job2));
+            // the previous version keeps working the way it was built
+            assertSame(job2Acl, before.getACL(job2));
+
+            jenkinsRule.jenkins.setAuthorizationStrategy(after);
+            permissionTest();
+        } finally {
+            FolderBasedAuthorizationStrategy.PARTITION_BY_TOP_LEVEL_FOLDER = false;
+            FolderBasedAuthorizationStrategy.USE_PERMISSION_PROFILES = false;
+        }
+    }
+
+    @Test
+    public void agentPermissionTest() throws Exception {
+        Jenkins jenkins = jenkinsRule.jenkins;
+        jenkinsRule.createSlave("agent1", null, null);
+        FolderAuthorizationStrategyAPI.addAgentRole(new AgentRole("agentRole1", wrapPermissions(Computer.CONFIGURE),
+                ImmutableSet.of("agent1")));
+        FolderAuthorizationStrategyAPI.assignSidToAgentRole("user1", "agentRole1");
+
+        Computer computer = jenkins.getComputer("agent1");
+        assertNotNull(computer);
+        FolderBasedAuthorizationStrategy strategy = (FolderBasedAuthorizationStrategy) jenkins.getAuthorizationStrategy();
+        assertSame(strategy.getACL(computer), strategy.getACL(computer));
+
+        try (ACLContext ignored = ACL.as(admin)) {
+            assertTrue(computer.hasPermission(Computer.CONFIGURE));
+            assertTrue(computer.hasPermission(Computer.DELETE));
+        }
+
+        try (ACLContext ignored = ACL.as(user1)) {
+            assertTrue(computer.hasPermission(Computer.CONFIGURE));
+            assertFalse(computer.hasPermission(Computer.DELETE));
+        }
+
+        try (ACLContext ignored = ACL.as(user2)) {
+            assertFalse(computer.hasPermission(Computer.CONFIGURE));
+        }
+    }
+
+    @Test
+    public void unchangedRolesAreShared() throws Exception {
+        jenkinsRule.createSlave("agent1", null, null);
+        FolderAuthorizationStrategyAPI.addAgentRole(new AgentRole("agentRole1", wrapPermissions(Computer.CONFIGURE),
+                ImmutableSet.of("agent1")));
+        Computer computer = jenkinsRule.jenkins.getComputer("agent1");
+        assertNotNull(computer);
+
+        FolderBasedAuthorizationStrategy before =
+                (FolderBasedAuthorizationStrategy) jenkinsRule.jenkins.getAuthorizationStrategy();
+        FolderAuthorizationStrategyAPI.assignSidToFolderRole("user3", "folderRole1");
+        FolderBasedAuthorizationStrategy after =
+                (FolderBasedAuthorizationStrategy) jenkinsRule.jenkins.getAuthorizationStrategy();
+
+        // only the folder roles changed
+        assertSame(before.getRootACL(), after.getRootACL());
+        assertSame(before.getACL(computer), after.getACL(computer));
+        assertFalse(before.getFolderRoles().equals(after.getFolderRoles()));
+    }
+
+    @Test
+    public void grantedPermissionsTest() {
+        FolderBasedAuthorizationStrategy strategy =
+                (FolderBasedAuthorizationStrategy) jenkinsRule.jenkins.getAuthorizationStrategy();
+
+        Set<Permission> permissions = strategy.getGrantedPermissions(user2.impersonate2(), job2);
+        assertTrue(permissions.contains(Item.READ));
+        assertTrue(permissions.contains(Item.DISCOVER));
+        assertTrue(permissions.contains(Item.CONFIGURE));
+        assertTrue(permissions.contains(Item.DELETE));
+        assertFalse(permissions.contains(Item.BUILD));
+
+        for (User user : new User[]{admin, user1, user2}) {
+            for (Item item : new Item[]{root, child1, child2, child3, job1, job2}) {
+                permissions = strategy.getGrantedPermissions(user.impersonate2(), (AbstractItem) item);
+                for (Permission permission : Permission.getAll()) {
+                    assertEquals(item.getACL().hasPermission2(user.impersonate2(), permission),
+                            permissions.contains(permission));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void visibilityTest() {
+        FolderAuthorizationStrategyAPI.addFolderRole(new FolderRole("folderRole3", wrapPermissions(Item.READ),
+                ImmutableSet.of("root/child1/child3")));
+        FolderAuthorizationStrategyAPI.assignSidToFolderRole("user3", "folderRole3");
+        User user3 = User.getById("user3", true);
+        FolderBasedAuthorizationStrategy strategy =
+                (FolderBasedAuthorizationStrategy) jenkinsRule.jenkins.getAuthorizationStrategy();
+
+        assertTrue(strategy.canReadAnythingBelow(user1.impersonate2(), "root/child2"));
+        assertTrue(strategy.canReadAnythingBelow(user3.impersonate2(), "root"));
+        assertTrue(strategy.canReadAnythingBelow(user3.impersonate2(), "root/child1"));
+        assertTrue(strategy.canReadAnythingBelow(user3.impersonate2(), "root/child1/child3/job2"));
+        assertFalse(strategy.canReadAnythingBelow(user3.impersonate2(), "root/child2"));
+        assertFalse(strategy.canReadAnythingBelow(user3.impersonate2(), "root/child2/job1"));
+        assertFalse(strategy.canReadAnythingBelow(user3.impersonate2(), "other"));
+
+        try (ACLContext ignored = ACL.as(user3)) {
+            // Jenkins also returns the items in folders which cannot be read
+            assertEquals(jenkinsRule.jenkins.getAllItems(Item.class), VisibleItems.getAllItems(Item.class));
+            assertEquals(Arrays.asList(child3, job2), VisibleItems.getAllItems(Item.class));
+        }
+
+        try (ACLContext ignored = ACL.as(user1)) {
+            assertEquals(jenkinsRule.jenkins.getAllItems(Item.class), VisibleItems.getAllItems(Item.class));
+        }
+    }
 }
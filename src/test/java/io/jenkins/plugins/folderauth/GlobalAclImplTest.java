@@ -57,4 +57,25 @@ public class GlobalAclImplTest {
 
         assertTrue(acl.hasPermission(admin, Jenkins.ADMINISTER));
     }
+
+    @Test
+    public void impliedPermissions() {
+        jenkinsRule.jenkins.setSecurityRealm(jenkinsRule.createDummySecurityRealm());
+        Set<GlobalRole> globalRoles = new HashSet<>();
+        globalRoles.add(new GlobalRole("read", wrapPermissions(Item.READ), ImmutableSet.of("foo")));
+        globalRoles.add(new GlobalRole("adminRole", wrapPermissions(Jenkins.ADMINISTER), ImmutableSet.of("admin")));
+
+        GlobalAclImpl acl = new GlobalAclImpl(globalRoles);
+
+        Authentication foo = Objects.requireNonNull(User.getById("foo", true)).impersonate();
+        Authentication admin = Objects.requireNonNull(User.getById("admin", true)).impersonate();
+
+        assertTrue(acl.hasPermission(foo, Item.DISCOVER));
+        assertFalse(acl.hasPermission(foo, Item.CONFIGURE));
+        assertFalse(acl.hasPermission(foo, Jenkins.RUN_SCRIPTS));
+
+        // dangerous permissions are implied by Jenkins.ADMINISTER
+        assertTrue(acl.hasPermission(admin, Jenkins.RUN_SCRIPTS));
+        assertTrue(acl.hasPermission(admin, Item.DISCOVER));
+    }
 }
@@ -0,0 +1,218 @@
+package io.jenkins.plugins.folderauth;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import com.google.common.collect.ImmutableSet;
+import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import hudson.model.User;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.security.Permission;
+import hudson.security.PermissionGroup;
+import io.jenkins.plugins.folderauth.roles.FolderRole;
+import io.jenkins.plugins.folderauth.roles.GlobalRole;
+import jenkins.model.Jenkins;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static io.jenkins.plugins.folderauth.misc.PermissionWrapper.wrapPermissions;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Checks permissions with a strategy built with each of the options changing how the {@link hudson.security.ACL}s
+ * of jobs are computed.
+ */
+@RunWith(Parameterized.class)
+public class JobAclOptionsTest {
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> options() {
+        return Arrays.asList(new Object[][]{
+            {"default"},
+            {"flattenInheritedAcls"},
+            {"partitionByTopLevelFolder"},
+            {"lazyJobAcls"},
+            {"memoizeRequestAcls"},
+            {"usePermissionProfiles"},
+        });
+    }
+
+    @Parameterized.Parameter
+    public String option;
+
+    private Folder root;
+    private Folder child1;
+    private Folder child2;
+    private Folder child3;
+
+    private FreeStyleProject job1;
+    private FreeStyleProject job2;
+
+    private User admin;
+    private User user1;
+    private User user2;
+
+    private static void setOption(String option, boolean enabled) {
+        switch (option) {
+            case "flattenInheritedAcls":
+                FolderBasedAuthorizationStrategy.FLATTEN_INHERITED_ACLS = enabled;
+                break;
+            case "partitionByTopLevelFolder":
+                FolderBasedAuthorizationStrategy.PARTITION_BY_TOP_LEVEL_FOLDER = enabled;
+                break;
+            case "lazyJobAcls":
+                FolderBasedAuthorizationStrategy.LAZY_JOB_ACLS = enabled;
+                break;
+            case "memoizeRequestAcls":
+                FolderBasedAuthorizationStrategy.MEMOIZE_REQUEST_ACLS = enabled;
+                break;
+            case "usePermissionProfiles":
+                FolderBasedAuthorizationStrategy.USE_PERMISSION_PROFILES = enabled;
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Jenkins jenkins = jenkinsRule.jenkins;
+        jenkins.setSecurityRealm(jenkinsRule.createDummySecurityRealm());
+
+        // the options are read when the strategy is built
+        setOption(option, true);
+        GlobalRole adminRole = new GlobalRole("adminRole",
+                wrapPermissions(FolderAuthorizationStrategyManagementLink.getSafePermissions(
+                        new HashSet<>(PermissionGroup.getAll()))), ImmutableSet.of("admin"));
+        GlobalRole overallRead = new GlobalRole("overallRead", wrapPermissions(Permission.READ),
+                ImmutableSet.of("authenticated"));
+        FolderRole folderRole1 = new FolderRole("folderRole1", wrapPermissions(Item.READ), ImmutableSet.of("root"),
+                ImmutableSet.of("user1", "user2"));
+        FolderRole folderRole2 = new FolderRole("folderRole2", wrapPermissions(Item.CONFIGURE, Item.DELETE),
+                ImmutableSet.of("root/child1"), ImmutableSet.of("user2"));
+        jenkins.setAuthorizationStrategy(new FolderBasedAuthorizationStrategy(
+                ImmutableSet.of(adminRole, overallRead), ImmutableSet.of(folderRole1, folderRole2),
+                Collections.emptySet()));
+
+        /*
+         * Folder hierarchy for the test
+         *
+         *             root
+         *             /  \
+         *        child1   child2
+         *          /        \
+         *        child3     job1
+         *         /
+         *        job2
+         */
+
+        root = jenkins.createProject(Folder.class, "root");
+        child1 = root.createProject(Folder.class, "child1");
+        child2 = root.createProject(Folder.class, "child2");
+        child3 = child1.createProject(Folder.class, "child3");
+
+        job1 = child2.createProject(FreeStyleProject.class, "job1");
+        job2 = child3.createProject(FreeStyleProject.class, "job2");
+
+        admin = User.getById("admin", true);
+        user1 = User.getById("user1", true);
+        user2 = User.getById("user2", true);
+    }
+
+    @After
+    public void tearDown() {
+        setOption(option, false);
+    }
+
+    @Test
+    public void permissionTest() {
+        Jenkins jenkins = jenkinsRule.jenkins;
+
+        try (ACLContext ignored = ACL.as(admin)) {
+            assertTrue(jenkins.hasPermission(Jenkins.ADMINISTER));
+            assertTrue(child3.hasPermission(Item.CONFIGURE));
+            assertTrue(job1.hasPermission(Item.READ));
+            assertTrue(job2.hasPermission(Item.CREATE));
+        }
+
+        try (ACLContext ignored = ACL.as(user1)) {
+            assertTrue(jenkins.hasPermission(Permission.READ));
+            assertTrue(root.hasPermission(Item.READ));
+            assertTrue(job1.hasPermission(Item.READ));
+            assertTrue(job2.hasPermission(Item.READ));
+
+            assertFalse(job1.hasPermission(Item.CREATE));
+            assertFalse(job1.hasPermission(Item.DELETE));
+            assertFalse(job1.hasPermission(Item.CONFIGURE));
+            assertFalse(job2.hasPermission(Item.CREATE));
+            assertFalse(job2.hasPermission(Item.CONFIGURE));
+        }
+
+        try (ACLContext ignored = ACL.as(user2)) {
+            assertTrue(jenkins.hasPermission(Permission.READ));
+            assertTrue(child2.hasPermission(Item.READ));
+            assertTrue(child1.hasPermission(Item.READ));
+            assertTrue(job2.hasPermission(Item.CONFIGURE));
+            assertFalse(job1.hasPermission(Item.CONFIGURE));
+        }
+    }
+
+    @Test
+    public void permissionTestAfterChange() throws Exception {
+        Folder other = jenkinsRule.jenkins.createProject(Folder.class, "other");
+        FolderBasedAuthorizationStrategy before =
+                (FolderBasedAuthorizationStrategy) jenkinsRule.jenkins.getAuthorizationStrategy();
+        FolderAuthorizationStrategyAPI.addFolderRole(new FolderRole("otherRole", wrapPermissions(Item.READ),
+                ImmutableSet.of("other"), ImmutableSet.of("user1")));
+        FolderBasedAuthorizationStrategy after =
+                (FolderBasedAuthorizationStrategy) jenkinsRule.jenkins.getAuthorizationStrategy();
+
+        if (FolderBasedAuthorizationStrategy.PARTITION_BY_TOP_LEVEL_FOLDER) {
+            // the ACLs below 'root' are not affected by the change on 'other'
+            assertSame(before.getJobAcls(job2.getFullName()), after.getJobAcls(job2.getFullName()));
+        }
+        permissionTest();
+        try (ACLContext ignored = ACL.as(user1)) {
+            assertTrue(other.hasPermission(Item.READ));
+        }
+        try (ACLContext ignored = ACL.as(user2)) {
+            assertFalse(other.hasPermission(Item.READ));
+        }
+
+        // a changed partition is compiled again on its next access
+        FolderAuthorizationStrategyAPI.assignSidToFolderRole("user2", "otherRole");
+        try (ACLContext ignored = ACL.as(user2)) {
+            assertTrue(other.hasPermission(Item.READ));
+        }
+        permissionTest();
+    }
+
+    @Test
+    public void permissionTestInRequests() throws Exception {
+        JenkinsRule.WebClient webClient = jenkinsRule.createWebClient()
+                .withThrowExceptionOnFailingStatusCode(false);
+        webClient.login("user1", "user1");
+        assertEquals(200, webClient.getPage(job1).getWebResponse().getStatusCode());
+        assertEquals(403, webClient.getPage(job1, "configure").getWebResponse().getStatusCode());
+
+        webClient = jenkinsRule.createWebClient().withThrowExceptionOnFailingStatusCode(false);
+        webClient.login("user2", "user2");
+        assertEquals(200, webClient.getPage(job2, "configure").getWebResponse().getStatusCode());
+        assertEquals(403, webClient.getPage(job1, "configure").getWebResponse().getStatusCode());
+    }
+}
@@ -0,0 +1,237 @@
+package io.jenkins.plugins.folderauth.acls;
+
+import com.google.common.collect.ImmutableSet;
+import hudson.model.Item;
+import hudson.model.User;
+import hudson.security.SidACL;
+import io.jenkins.plugins.folderauth.roles.GlobalRole;
+import jenkins.model.Jenkins;
+import org.acegisecurity.Authentication;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.Collections;
+import java.util.Objects;
+
+import static io.jenkins.plugins.folderauth.misc.PermissionWrapper.wrapPermissions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FolderAclTrieTest {
+
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+
+    @Test
+    public void inheritedAcl() {
+        jenkinsRule.jenkins.setSecurityRealm(jenkinsRule.createDummySecurityRealm());
+
+        GlobalAclImpl globalAcl = new GlobalAclImpl(Collections.singleton(new GlobalRole("admin",
+            wrapPermissions(Jenkins.ADMINISTER), ImmutableSet.of("admin"))));
+
+        FolderAclTrie trie = new FolderAclTrie();
+        trie.getOrCreateAcl("a").assignPermissions(ImmutableSet.of("foo"), ImmutableSet.of(Item.READ));
+        trie.getOrCreateAcl("a/b/c").assignPermissions(ImmutableSet.of("bar"), ImmutableSet.of(Item.CONFIGURE));
+        trie.getOrCreateAcl("ab").assignPermissions(ImmutableSet.of("bar"), ImmutableSet.of(Item.DELETE));
+        trie.inherit(globalAcl);
+
+        Authentication admin = Objects.requireNonNull(User.getById("admin", true)).impersonate();
+        Authentication foo = Objects.requireNonNull(User.getById("foo", true)).impersonate();
+        Authentication bar = Objects.requireNonNull(User.getById("bar", true)).impersonate();
+
+        assertSame(globalAcl, trie.getInheritedAcl("b"));
+        assertSame(globalAcl, trie.getInheritedAcl(""));
+        assertSame(trie.getInheritedAcl("a"), trie.getInheritedAcl("a/b"));
+
+        SidACL acl = trie.getInheritedAcl("a/b/c/job");
+        assertTrue(acl.hasPermission(admin, Item.CONFIGURE));
+        assertTrue(acl.hasPermission(foo, Item.READ));
+        assertFalse(acl.hasPermission(foo, Item.CONFIGURE));
+        assertTrue(acl.hasPermission(bar, Item.CONFIGURE));
+        assertFalse(acl.hasPermission(bar, Item.DELETE));
+
+        acl = trie.getInheritedAcl("a/bc");
+        assertTrue(acl.hasPermission(foo, Item.READ));
+        assertFalse(acl.hasPermission(bar, Item.CONFIGURE));
+
+        assertTrue(trie.getInheritedAcl("ab/job").hasPermission(bar, Item.DELETE));
+        assertFalse(trie.getInheritedAcl("ab/job").hasPermission(foo, Item.READ));
+    }
+
+    @Test
+    public void nearestRuledFolder() {
+        FolderAclTrie trie = new FolderAclTrie();
+        trie.getOrCreateAcl("a").assignPermissions(ImmutableSet.of("foo"), ImmutableSet.of(Item.READ));
+        trie.getOrCreateAcl("a/b/c").assignPermissions(ImmutableSet.of("bar"), ImmutableSet.of(Item.CONFIGURE));
+        trie.inherit(new GlobalAclImpl(Collections.emptySet()));
+
+        assertEquals("a", trie.getNearestRuledFolder("a"));
+        assertEquals("a", trie.getNearestRuledFolder("a/b"));
+        assertEquals("a", trie.getNearestRuledFolder("a/b/job"));
+        assertEquals("a/b/c", trie.getNearestRuledFolder("a/b/c"));
+        assertEquals("a/b/c", trie.getNearestRuledFolder("a/b/c/d/job"));
+        assertEquals("a", trie.getNearestRuledFolder("a/bc"));
+        assertEquals("", trie.getNearestRuledFolder("ab/job"));
+        assertEquals("", trie.getNearestRuledFolder(""));
+    }
+
+    @Test
+    public void profiledAcl() {
+        JenkinsRule.DummySecurityRealm realm = jenkinsRule.createDummySecurityRealm();
+        realm.addGroups("foo", "team");
+        jenkinsRule.jenkins.setSecurityRealm(realm);
+
+        GlobalAclImpl globalAcl = new GlobalAclImpl(Collections.singleton(new GlobalRole("admin",
+            wrapPermissions(Jenkins.ADMINISTER), ImmutableSet.of("admin"))));
+
+        FolderAclTrie trie = new FolderAclTrie();
+        trie.getOrCreateAcl("a").assignPermissions(ImmutableSet.of("team"), ImmutableSet.of(Item.READ));
+        trie.getOrCreateAcl("a/b/c").assignPermissions(ImmutableSet.of("bar"), ImmutableSet.of(Item.CONFIGURE));
+        trie.getOrCreateAcl("a/b/c/d").assignPermissions(ImmutableSet.of("foo"), ImmutableSet.of(Item.DELETE));
+        trie.inherit(globalAcl);
+
+        Authentication admin = Objects.requireNonNull(User.getById("admin", true)).impersonate();
+        Authentication foo = Objects.requireNonNull(User.getById("foo", true)).impersonate();
+        Authentication bar = Objects.requireNonNull(User.getById("bar", true)).impersonate();
+
+        assertSame(trie.getProfiledAcl("a/b/c/job"), trie.getProfiledAcl("a/b/c/job"));
+
+        SidACL acl = trie.getProfiledAcl("a/b/c/d/job");
+        assertTrue(acl.hasPermission(admin, Item.CONFIGURE));
+        assertTrue(acl.hasPermission(foo, Item.READ));
+        assertTrue(acl.hasPermission(foo, Item.DELETE));
+        assertFalse(acl.hasPermission(foo, Item.CONFIGURE));
+        assertTrue(acl.hasPermission(bar, Item.CONFIGURE));
+        assertFalse(acl.hasPermission(bar, Item.READ));
+
+        acl = trie.getProfiledAcl("a/b/job");
+        assertTrue(acl.hasPermission(foo, Item.READ));
+        assertFalse(acl.hasPermission(foo, Item.DELETE));
+        assertFalse(acl.hasPermission(bar, Item.CONFIGURE));
+        assertFalse(trie.getProfiledAcl("b/job").hasPermission(foo, Item.READ));
+    }
+
+    @Test
+    public void negativeDecisions() {
+        jenkinsRule.jenkins.setSecurityRealm(jenkinsRule.createDummySecurityRealm());
+
+        FolderAclTrie trie = new FolderAclTrie();
+        trie.getOrCreateAcl("a").assignPermissions(ImmutableSet.of("foo"), ImmutableSet.of(Item.READ));
+        trie.getOrCreateAcl("b").assignPermissions(ImmutableSet.of("bar"), ImmutableSet.of(Item.READ));
+        trie.inherit(new GlobalAclImpl(Collections.emptySet()));
+
+        org.springframework.security.core.Authentication foo =
+            Objects.requireNonNull(User.getById("foo", true)).impersonate2();
+        org.springframework.security.core.Authentication baz =
+            Objects.requireNonNull(User.getById("baz", true)).impersonate2();
+        NegativeDecisionStatistics.reset();
+
+        // nothing is granted to baz on any folder
+        assertFalse(trie.getProfiledAcl("a/job").hasPermission2(baz, Item.READ));
+        assertEquals(1, NegativeDecisionStatistics.getHitCount());
+
+        // foo has grants, but not on the path to b/job, which is never walked
+        assertFalse(trie.getProfiledAcl("b/job").hasPermission2(foo, Item.READ));
+        assertFalse(trie.getProfiledAcl("b/job").hasPermission2(foo, Item.CONFIGURE));
+        assertEquals(3, NegativeDecisionStatistics.getHitCount());
+        assertEquals(3, NegativeDecisionStatistics.getLookupCount());
+
+        // the path to a/job grants something to foo, so it is walked
+        assertFalse(trie.getProfiledAcl("a/job").hasPermission2(foo, Item.CONFIGURE));
+        assertTrue(trie.getProfiledAcl("a/job").hasPermission2(foo, Item.READ));
+        assertEquals(3, NegativeDecisionStatistics.getHitCount());
+        assertEquals(5, NegativeDecisionStatistics.getLookupCount());
+
+        // the short-circuit keeps no state per user, so it works for any number of them
+        NegativeDecisionStatistics.reset();
+        for (int i = 0; i < 1000; i++) {
+            org.springframework.security.core.Authentication user =
+                Objects.requireNonNull(User.getById("user" + i, true)).impersonate2();
+            assertFalse(trie.getProfiledAcl("b/job").hasPermission2(user, Item.READ));
+        }
+        assertEquals(1000, NegativeDecisionStatistics.getHitCount());
+    }
+
+    @Test
+    public void manyChildren() {
+        jenkinsRule.jenkins.setSecurityRealm(jenkinsRule.createDummySecurityRealm());
+
+        FolderAclTrie trie = new FolderAclTrie();
+        for (int i = 0; i < 1000; i++) {
+            trie.getOrCreateAcl("folder" + i).assignPermissions(ImmutableSet.of("user" + i), ImmutableSet.of(Item.READ));
+        }
+        trie.inherit(new GlobalAclImpl(Collections.emptySet()));
+
+        for (int i = 0; i < 1000; i++) {
+            Authentication user = Objects.requireNonNull(User.getById("user" + i, true)).impersonate();
+            assertTrue(trie.getInheritedAcl("folder" + i + "/job").hasPermission(user, Item.READ));
+            assertFalse(trie.getInheritedAcl("folder" + (i + 1) + "/job").hasPermission(user, Item.READ));
+        }
+    }
+
+    @Test
+    public void flattenedAcl() {
+        jenkinsRule.jenkins.setSecurityRealm(jenkinsRule.createDummySecurityRealm());
+
+        GlobalAclImpl globalAcl = new GlobalAclImpl(Collections.singleton(new GlobalRole("admin",
+            wrapPermissions(Jenkins.ADMINISTER), ImmutableSet.of("admin"))));
+
+        FolderAclTrie previous = new FolderAclTrie();
+        previous.getOrCreateAcl("a").assignPermissions(ImmutableSet.of("foo"), ImmutableSet.of(Item.READ));
+        previous.getOrCreateAcl("a/b").assignPermissions(ImmutableSet.of("bar"), ImmutableSet.of(Item.CONFIGURE));
+        previous.getOrCreateAcl("c").assignPermissions(ImmutableSet.of("bar"), ImmutableSet.of(Item.DELETE));
+        previous.flatten(globalAcl, null);
+
+        Authentication admin = Objects.requireNonNull(User.getById("admin", true)).impersonate();
+        Authentication foo = Objects.requireNonNull(User.getById("foo", true)).impersonate();
+        Authentication bar = Objects.requireNonNull(User.getById("bar", true)).impersonate();
+
+        SidACL acl = previous.getInheritedAcl("a/b/job");
+        assertTrue(acl.hasPermission(admin, Item.CONFIGURE));
+        assertTrue(acl.hasPermission(foo, Item.READ));
+        assertTrue(acl.hasPermission(bar, Item.CONFIGURE));
+        assertFalse(acl.hasPermission(bar, Item.DELETE));
+        assertFalse(previous.getInheritedAcl("a/job").hasPermission(bar, Item.CONFIGURE));
+
+        // only the subtree under "a/b" changes
+        FolderAclTrie trie = new FolderAclTrie();
+        trie.getOrCreateAcl("a").assignPermissions(ImmutableSet.of("foo"), ImmutableSet.of(Item.READ));
+        trie.getOrCreateAcl("a/b").assignPermissions(ImmutableSet.of("bar"), ImmutableSet.of(Item.BUILD));
+        trie.getOrCreateAcl("c").assignPermissions(ImmutableSet.of("bar"), ImmutableSet.of(Item.DELETE));
+        trie.flatten(new GlobalAclImpl(Collections.singleton(new GlobalRole("admin",
+            wrapPermissions(Jenkins.ADMINISTER), ImmutableSet.of("admin")))), previous);
+
+        assertSame(previous.getInheritedAcl("a"), trie.getInheritedAcl("a"));
+        assertSame(previous.getInheritedAcl("c"), trie.getInheritedAcl("c"));
+        assertNotSame(previous.getInheritedAcl("a/b"), trie.getInheritedAcl("a/b"));
+        assertTrue(trie.getInheritedAcl("a/b/job").hasPermission(bar, Item.BUILD));
+        assertFalse(trie.getInheritedAcl("a/b/job").hasPermission(bar, Item.CONFIGURE));
+    }
+
+    @Test
+    public void identicalAclsAreShared() {
+        jenkinsRule.jenkins.setSecurityRealm(jenkinsRule.createDummySecurityRealm());
+        GlobalAclImpl globalAcl = new GlobalAclImpl(Collections.emptySet());
+
+        FolderAclTrie inheriting = new FolderAclTrie();
+        FolderAclTrie flattened = new FolderAclTrie();
+        for (int i = 0; i < 10000; i++) {
+            String folder = "team" + i + "/folder";
+            inheriting.getOrCreateAcl(folder).assignPermissions(ImmutableSet.of("readers"), ImmutableSet.of(Item.READ));
+            flattened.getOrCreateAcl(folder).assignPermissions(ImmutableSet.of("readers"), ImmutableSet.of(Item.READ));
+        }
+        inheriting.getOrCreateAcl("team0/folder").assignPermissions(ImmutableSet.of("foo"), ImmutableSet.of(Item.BUILD));
+        flattened.getOrCreateAcl("team0/folder").assignPermissions(ImmutableSet.of("foo"), ImmutableSet.of(Item.BUILD));
+        inheriting.inherit(globalAcl);
+        flattened.flatten(globalAcl, null);
+
+        for (FolderAclTrie trie : new FolderAclTrie[]{inheriting, flattened}) {
+            assertSame(trie.getInheritedAcl("team1/folder"), trie.getInheritedAcl("team9999/folder/job"));
+            assertNotSame(trie.getInheritedAcl("team0/folder"), trie.getInheritedAcl("team1/folder"));
+        }
+    }
+}
@@ -3,6 +3,7 @@ package io.jenkins.plugins.folderauth.jmh;
 import jenkins.benchmark.jmh.BenchmarkFinder;
 import org.junit.Test;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.results.format.ResultFormatType;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
@@ -17,6 +18,8 @@ public class BenchmarkRunner {
     public void runBenchmarks() throws IOException, RunnerException {
         ChainedOptionsBuilder options = new OptionsBuilder()
                                             .forks(2)
+                                            // reports the bytes allocated per operation next to the timings
+                                            .addProfiler(GCProfiler.class)
                                             .mode(Mode.AverageTime)
                                             .shouldDoGC(true)
                                             .shouldFailOnError(true)
@@ -0,0 +1,54 @@
+package io.jenkins.plugins.folderauth.jmh.benchmarks;
+
+import static io.jenkins.plugins.folderauth.misc.PermissionWrapper.wrapPermissions;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import io.jenkins.plugins.folderauth.AclCacheWarmUp;
+import io.jenkins.plugins.folderauth.FolderBasedAuthorizationStrategy;
+import io.jenkins.plugins.folderauth.roles.FolderRole;
+import io.jenkins.plugins.folderauth.roles.GlobalRole;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import jenkins.model.Jenkins;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Creates a new version of the strategy and warms up the {@link hudson.security.ACL}s of jobs with 60,000 items:
+ * 600 folders with roles, of 99 jobs each.
+ */
+@JmhBenchmark
+@SuppressWarnings("unused")
+public class CacheWarmUpBenchmark {
+    public static class MyState extends JmhBenchmarkState {
+        Set<GlobalRole> globalRoles;
+        Set<FolderRole> folderRoles;
+
+        @Override
+        public void setup() throws Exception {
+            Jenkins jenkins = getJenkins();
+            folderRoles = new HashSet<>();
+            for (int i = 0; i < 600; i++) {
+                Folder folder = jenkins.createProject(Folder.class, "folder" + i);
+                for (int j = 0; j < 99; j++) {
+                    folder.createProject(FreeStyleProject.class, "job" + j);
+                }
+                folderRoles.add(new FolderRole("role" + i, wrapPermissions(Item.READ),
+                    Collections.singleton("folder" + i), Collections.singleton("user" + i)));
+            }
+            globalRoles = Collections.singleton(new GlobalRole("read", wrapPermissions(Jenkins.READ),
+                Collections.singleton("authenticated")));
+        }
+    }
+
+    @Benchmark
+    public int warmUp(MyState state) {
+        FolderBasedAuthorizationStrategy strategy = new FolderBasedAuthorizationStrategy(state.globalRoles,
+            state.folderRoles, Collections.emptySet());
+        return AclCacheWarmUp.warmUp(strategy).getDone();
+    }
+}
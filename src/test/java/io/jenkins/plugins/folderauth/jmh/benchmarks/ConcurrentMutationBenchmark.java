@@ -0,0 +1,78 @@
+package io.jenkins.plugins.folderauth.jmh.benchmarks;
+
+import static io.jenkins.plugins.folderauth.misc.PermissionWrapper.wrapPermissions;
+
+import hudson.model.Item;
+import io.jenkins.plugins.folderauth.FolderAuthorizationStrategyAPI;
+import io.jenkins.plugins.folderauth.FolderBasedAuthorizationStrategy;
+import io.jenkins.plugins.folderauth.roles.FolderRole;
+import io.jenkins.plugins.folderauth.roles.GlobalRole;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import jenkins.model.Jenkins;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures modifications through {@link FolderAuthorizationStrategyAPI} made by 16 threads at the same time, as
+ * when several clients use the REST API concurrently.
+ * <p>
+ * Each invocation makes every thread assign a sid to a folder role and remove it again, so the time of one
+ * invocation is the time taken by 32 concurrent modifications.
+ */
+@JmhBenchmark
+@SuppressWarnings("unused")
+public class ConcurrentMutationBenchmark {
+    private static final int MUTATORS = 16;
+
+    public static class MyState extends JmhBenchmarkState {
+        ExecutorService executor;
+
+        @Override
+        public void setup() {
+            Jenkins jenkins = getJenkins();
+            jenkins.setSecurityRealm(new JenkinsRule().createDummySecurityRealm());
+
+            Set<FolderRole> folderRoles = new HashSet<>();
+            for (int i = 0; i < 1000; i++) {
+                folderRoles.add(new FolderRole("role" + i, wrapPermissions(Item.READ, Item.CONFIGURE),
+                    Collections.singleton("folder" + i), Collections.singleton("user" + i)));
+            }
+            GlobalRole admin = new GlobalRole("admin", wrapPermissions(Jenkins.ADMINISTER),
+                Collections.singleton("admin"));
+
+            jenkins.setAuthorizationStrategy(new FolderBasedAuthorizationStrategy(Collections.singleton(admin),
+                folderRoles, Collections.emptySet()));
+            executor = Executors.newFixedThreadPool(MUTATORS);
+        }
+
+        @Override
+        public void tearDown() {
+            executor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public void assignAndRemoveSids(MyState state) throws Exception {
+        List<Future<?>> futures = new ArrayList<>(MUTATORS);
+        for (int i = 0; i < MUTATORS; i++) {
+            String sid = "mutator" + i;
+            String roleName = "role" + i;
+            futures.add(state.executor.submit(() -> {
+                FolderAuthorizationStrategyAPI.assignSidToFolderRole(sid, roleName);
+                FolderAuthorizationStrategyAPI.removeSidFromFolderRole(sid, roleName);
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+}
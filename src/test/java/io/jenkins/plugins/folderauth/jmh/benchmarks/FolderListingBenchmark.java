@@ -0,0 +1,87 @@
+package io.jenkins.plugins.folderauth.jmh.benchmarks;
+
+import static io.jenkins.plugins.folderauth.misc.PermissionWrapper.wrapPermissions;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import io.jenkins.plugins.folderauth.FolderBasedAuthorizationStrategy;
+import io.jenkins.plugins.folderauth.roles.FolderRole;
+import io.jenkins.plugins.folderauth.roles.GlobalRole;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import jenkins.model.Jenkins;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Renders a folder containing 500 jobs, with and without
+ * {@link FolderBasedAuthorizationStrategy#MEMOIZE_REQUEST_ACLS}.
+ */
+@JmhBenchmark
+@SuppressWarnings("unused")
+public class FolderListingBenchmark {
+    public static class MyState extends JmhBenchmarkState {
+        @Param({"false", "true"})
+        boolean memoize;
+
+        HttpClient client;
+        HttpRequest request;
+
+        @Override
+        public void setup() throws Exception {
+            FolderBasedAuthorizationStrategy.MEMOIZE_REQUEST_ACLS = memoize;
+
+            Jenkins jenkins = getJenkins();
+            jenkins.setSecurityRealm(new JenkinsRule().createDummySecurityRealm());
+
+            Folder listing = jenkins.createProject(Folder.class, "listing");
+            for (int i = 0; i < 500; i++) {
+                listing.createProject(FreeStyleProject.class, "job" + i);
+            }
+
+            Set<FolderRole> folderRoles = new HashSet<>();
+            folderRoles.add(new FolderRole("listing", wrapPermissions(Item.READ), Collections.singleton("listing"),
+                Collections.singleton("user")));
+            for (int i = 0; i < 1000; i++) {
+                folderRoles.add(new FolderRole("role" + i, wrapPermissions(Item.READ, Item.CONFIGURE),
+                    Collections.singleton("listing/job" + i % 500), Collections.singleton("user" + i)));
+            }
+            GlobalRole read = new GlobalRole("read", wrapPermissions(Jenkins.READ),
+                Collections.singleton("authenticated"));
+
+            jenkins.setAuthorizationStrategy(new FolderBasedAuthorizationStrategy(Collections.singleton(read),
+                folderRoles, Collections.emptySet()));
+
+            client = HttpClient.newHttpClient();
+            request = HttpRequest.newBuilder(URI.create(getJenkinsURL() + "job/listing/"))
+                          .header("Authorization", "Basic " + Base64.getEncoder().encodeToString(
+                              "user:user".getBytes(StandardCharsets.UTF_8)))
+                          .build();
+        }
+
+        @Override
+        public void tearDown() {
+            FolderBasedAuthorizationStrategy.MEMOIZE_REQUEST_ACLS = false;
+        }
+    }
+
+    @Benchmark
+    public int renderFolder(MyState state) throws Exception {
+        HttpResponse<Void> response = state.client.send(state.request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
@@ -6,6 +6,7 @@ import hudson.model.FreeStyleProject;
 import hudson.model.Item;
 import hudson.model.User;
 import io.jenkins.plugins.folderauth.FolderBasedAuthorizationStrategy;
+import io.jenkins.plugins.folderauth.VisibleItems;
 import io.jenkins.plugins.folderauth.roles.FolderRole;
 import io.jenkins.plugins.folderauth.roles.GlobalRole;
 import jenkins.benchmark.jmh.JmhBenchmark;
@@ -108,4 +109,9 @@ public class FolderRoleBenchmark {
     public void renderViewSimulation(MyState state, ThreadState threadState, Blackhole blackhole) {
         blackhole.consume(state.getJenkins().getAllItems());
     }
+
+    @Benchmark
+    public void renderViewSimulationWithVisibilityIndex(MyState state, ThreadState threadState, Blackhole blackhole) {
+        blackhole.consume(VisibleItems.getAllItems(Item.class));
+    }
 }
@@ -0,0 +1,70 @@
+package io.jenkins.plugins.folderauth.jmh.benchmarks;
+
+import static io.jenkins.plugins.folderauth.misc.PermissionWrapper.wrapPermissions;
+
+import hudson.model.Computer;
+import hudson.model.Item;
+import io.jenkins.plugins.folderauth.FolderBasedAuthorizationStrategy;
+import io.jenkins.plugins.folderauth.roles.AbstractRole;
+import io.jenkins.plugins.folderauth.roles.AgentRole;
+import io.jenkins.plugins.folderauth.roles.FolderRole;
+import io.jenkins.plugins.folderauth.roles.GlobalRole;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares {@link FolderBasedAuthorizationStrategy#getGroups()} with 10,000 roles against collecting the sids
+ * of all roles on every call, as it was done before the groups were computed when the strategy is created.
+ */
+@JmhBenchmark
+@SuppressWarnings("unused")
+public class GetGroupsBenchmark {
+    public static class Roles10k extends JmhBenchmarkState {
+        FolderBasedAuthorizationStrategy strategy;
+
+        @Override
+        public void setup() {
+            Set<GlobalRole> globalRoles = new HashSet<>();
+            Set<FolderRole> folderRoles = new HashSet<>();
+            Set<AgentRole> agentRoles = new HashSet<>();
+
+            for (int i = 0; i < 1000; i++) {
+                globalRoles.add(new GlobalRole("global" + i, wrapPermissions(Item.DISCOVER),
+                    Set.of("user" + i, "group" + i % 100)));
+            }
+            for (int i = 0; i < 8000; i++) {
+                folderRoles.add(new FolderRole("folder" + i, wrapPermissions(Item.READ),
+                    Collections.singleton("folder" + i), Set.of("user" + i, "group" + i % 100)));
+            }
+            for (int i = 0; i < 1000; i++) {
+                agentRoles.add(new AgentRole("agent" + i, wrapPermissions(Computer.CONNECT),
+                    Collections.singleton("agent" + i), Set.of("user" + i, "group" + i % 100)));
+            }
+
+            strategy = new FolderBasedAuthorizationStrategy(globalRoles, folderRoles, agentRoles);
+        }
+    }
+
+    @Benchmark
+    public void getGroups(Roles10k state, Blackhole blackhole) {
+        blackhole.consume(state.strategy.getGroups());
+    }
+
+    @Benchmark
+    public void collectGroupsOnEveryCall(Roles10k state, Blackhole blackhole) {
+        FolderBasedAuthorizationStrategy strategy = state.strategy;
+        Set<String> groups = ConcurrentHashMap.newKeySet();
+        strategy.getAgentRoles().stream().parallel().map(AbstractRole::getSids).forEach(groups::addAll);
+        strategy.getGlobalRoles().stream().parallel().map(AbstractRole::getSids).forEach(groups::addAll);
+        strategy.getFolderRoles().stream().parallel().map(AbstractRole::getSids).forEach(groups::addAll);
+        Collection<String> result = Collections.unmodifiableCollection(groups);
+        blackhole.consume(result);
+    }
+}
@@ -0,0 +1,88 @@
+package io.jenkins.plugins.folderauth.jmh.benchmarks;
+
+import static io.jenkins.plugins.folderauth.misc.PermissionWrapper.wrapPermissions;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import hudson.security.ACL;
+import io.jenkins.plugins.folderauth.FolderBasedAuthorizationStrategy;
+import io.jenkins.plugins.folderauth.roles.FolderRole;
+import io.jenkins.plugins.folderauth.roles.GlobalRole;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import jenkins.model.Jenkins;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Checks permissions of a user belonging to 300 groups on a job three folders deep, with and without
+ * {@link FolderBasedAuthorizationStrategy#USE_PERMISSION_PROFILES}.
+ */
+@JmhBenchmark
+@SuppressWarnings("unused")
+public class ManyGroupsBenchmark {
+    public static class MyState extends JmhBenchmarkState {
+        @Param({"false", "true"})
+        boolean useProfiles;
+
+        ACL acl;
+        Authentication authentication;
+
+        @Override
+        public void setup() throws Exception {
+            FolderBasedAuthorizationStrategy.USE_PERMISSION_PROFILES = useProfiles;
+
+            Jenkins jenkins = getJenkins();
+            Folder team = jenkins.createProject(Folder.class, "team");
+            Folder project = team.createProject(Folder.class, "project");
+            Folder component = project.createProject(Folder.class, "component");
+            FreeStyleProject job = component.createProject(FreeStyleProject.class, "job");
+
+            Set<FolderRole> folderRoles = new HashSet<>();
+            for (int i = 0; i < 1000; i++) {
+                folderRoles.add(new FolderRole("role" + i, wrapPermissions(Item.READ),
+                    Set.of("team", "team/project", "team/project/component"), Set.of("group" + i)));
+            }
+            folderRoles.add(new FolderRole("maintainers", wrapPermissions(Item.CONFIGURE),
+                Collections.singleton("team/project/component"), Collections.singleton("maintainers")));
+            GlobalRole read = new GlobalRole("read", wrapPermissions(Jenkins.READ),
+                Collections.singleton("authenticated"));
+
+            jenkins.setAuthorizationStrategy(new FolderBasedAuthorizationStrategy(Collections.singleton(read),
+                folderRoles, Collections.emptySet()));
+
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                authorities.add(new SimpleGrantedAuthority("unrelated" + i));
+            }
+            authorities.add(new SimpleGrantedAuthority("maintainers"));
+            authentication = new UsernamePasswordAuthenticationToken("user", "", authorities);
+            acl = job.getACL();
+        }
+
+        @Override
+        public void tearDown() {
+            FolderBasedAuthorizationStrategy.USE_PERMISSION_PROFILES = false;
+        }
+    }
+
+    @Benchmark
+    public boolean grantedPermission(MyState state) {
+        return state.acl.hasPermission2(state.authentication, Item.CONFIGURE);
+    }
+
+    @Benchmark
+    public boolean deniedPermission(MyState state) {
+        return state.acl.hasPermission2(state.authentication, Item.DELETE);
+    }
+}
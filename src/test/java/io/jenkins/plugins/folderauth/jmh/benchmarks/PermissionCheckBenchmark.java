@@ -0,0 +1,121 @@
+package io.jenkins.plugins.folderauth.jmh.benchmarks;
+
+import static io.jenkins.plugins.folderauth.misc.PermissionWrapper.wrapPermissions;
+
+import com.google.common.collect.ImmutableSet;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.model.Item;
+import hudson.model.User;
+import hudson.security.ACL;
+import hudson.security.Permission;
+import hudson.security.SidACL;
+import io.jenkins.plugins.folderauth.FolderBasedAuthorizationStrategy;
+import io.jenkins.plugins.folderauth.misc.PermissionWrapper;
+import io.jenkins.plugins.folderauth.roles.GlobalRole;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import jenkins.model.Jenkins;
+import org.acegisecurity.acls.sid.Sid;
+import org.apache.commons.collections.CollectionUtils;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Compares the permission masks of {@link io.jenkins.plugins.folderauth.acls.GlobalAclImpl} with the sets of
+ * permissions they replaced, on the roles of {@link GlobalRoleBenchmark}.
+ * <p>
+ * {@link SetBackedAcl} keeps the former implementation: a {@link Set} of {@link Permission}s per sid, checked
+ * with {@link CollectionUtils#containsAny} against the permissions implying the requested one. Like in
+ * {@link GlobalRoleBenchmark}, "user3" does not have the {@link Item#CREATE} permission.
+ */
+@JmhBenchmark
+@SuppressWarnings("unused")
+public class PermissionCheckBenchmark {
+    public static class MyState extends JmhBenchmarkState {
+        @Param({"50", "100", "200", "500"})
+        int roleCount;
+
+        ACL masks;
+        ACL sets;
+        Authentication authentication;
+
+        @Override
+        public void setup() {
+            getJenkins().setSecurityRealm(new JenkinsRule().createDummySecurityRealm());
+            Set<GlobalRole> globalRoles = new HashSet<>();
+            for (int i = 0; i < roleCount; i++) {
+                globalRoles.add(new GlobalRole("role" + i, wrapPermissions(Item.DISCOVER, Item.CONFIGURE),
+                    ImmutableSet.of("user" + i)));
+            }
+
+            masks = new FolderBasedAuthorizationStrategy(globalRoles, Collections.emptySet(),
+                Collections.emptySet()).getRootACL();
+            sets = new SetBackedAcl(globalRoles);
+            authentication = Objects.requireNonNull(User.getById("user3", true)).impersonate2();
+        }
+    }
+
+    @Benchmark
+    public boolean masks(MyState state) {
+        return state.masks.hasPermission2(state.authentication, Item.CREATE);
+    }
+
+    @Benchmark
+    public boolean sets(MyState state) {
+        return state.sets.hasPermission2(state.authentication, Item.CREATE);
+    }
+
+    /**
+     * Checks permissions the way the {@link ACL}s of this plugin did before they stored permission masks.
+     */
+    private static final class SetBackedAcl extends SidACL {
+        private static final Map<Permission, Set<Permission>> implyingPermissionsCache = new ConcurrentHashMap<>();
+
+        private final Map<String, Set<Permission>> permissionList = new HashMap<>();
+
+        private SetBackedAcl(Set<GlobalRole> globalRoles) {
+            for (GlobalRole role : globalRoles) {
+                for (String sid : role.getSids()) {
+                    Set<Permission> permissions = permissionList.computeIfAbsent(sid, s -> new HashSet<>());
+                    for (PermissionWrapper wrapper : role.getPermissionsUnsorted()) {
+                        permissions.add(wrapper.getPermission());
+                    }
+                }
+            }
+        }
+
+        private static Set<Permission> getImplyingPermissions(Permission permission) {
+            return implyingPermissionsCache.computeIfAbsent(permission, p -> {
+                Set<Permission> implyingPermissions = new HashSet<>();
+                for (Permission implying = p; implying != null; implying = implying.impliedBy) {
+                    implyingPermissions.add(implying);
+                }
+                return implyingPermissions;
+            });
+        }
+
+        @Override
+        @SuppressFBWarnings(value = "NP_BOOLEAN_RETURN_NULL",
+            justification = "hudson.security.SidACL requires null when unknown")
+        protected Boolean hasPermission(Sid sid, Permission permission) {
+            if (PermissionWrapper.DANGEROUS_PERMISSIONS.contains(permission)) {
+                permission = Jenkins.ADMINISTER;
+            }
+
+            Set<Permission> permissions = permissionList.get(toString(sid));
+            if (permissions != null && CollectionUtils.containsAny(permissions, getImplyingPermissions(permission))) {
+                return true;
+            }
+            return null;
+        }
+    }
+}